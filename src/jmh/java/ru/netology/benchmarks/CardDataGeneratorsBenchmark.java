@@ -0,0 +1,141 @@
+package ru.netology.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import ru.netology.helpers.DataHelper;
+
+import java.util.concurrent.TimeUnit;
+
+// стоимость генерации полного набора данных карты для каждого сценария из тестов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CardDataGeneratorsBenchmark {
+    int expiryYears = 5;
+    int cardOwnerMaxLength = 27;
+    int cardNumberMaxLength = 16;
+
+    @Benchmark
+    public DataHelper.CardData generateValidCardData() {
+        return DataHelper.generateValidCardData(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithDeclinedCard() {
+        return DataHelper.generateCardDataWithDeclinedCard(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithCardOwnerFixedLength() {
+        return DataHelper.generateCardDataWithCardOwnerFixedLength(cardOwnerMaxLength, expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithInvalidCardOwnerLocale() {
+        return DataHelper.generateCardDataWithInvalidCardOwnerLocale("ru", expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithInvalidCardOwnerSymbols() {
+        return DataHelper.generateCardDataWithInvalidCardOwnerSymbols(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithCardOwnerSpaces() {
+        return DataHelper.generateCardDataWithCardOwnerSpaces(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithIncompleteCardOwner() {
+        return DataHelper.generateCardDataWithIncompleteCardOwner(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithHyphenCardOwner() {
+        return DataHelper.generateCardDataWithHyphenCardOwner(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithShiftedMonthFromCurrent() {
+        return DataHelper.generateCardDataWithShiftedMonthFromCurrent(1);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithShiftedYearFromCurrent() {
+        return DataHelper.generateCardDataWithShiftedYearFromCurrent(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithZeroCVC() {
+        return DataHelper.generateCardDataWithZeroCVC(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithIncompleteNumber() {
+        return DataHelper.generateCardDataWithIncompleteNumber(expiryYears, cardNumberMaxLength - 1);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithWrongMonth() {
+        return DataHelper.generateCardDataWithWrongMonth(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithMonthInvalidLength() {
+        return DataHelper.generateCardDataWithMonthInvalidLength(1, expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithYearInvalidLength() {
+        return DataHelper.generateCardDataWithYearInvalidLength(1);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithCVCInvalidLength() {
+        return DataHelper.generateCardDataWithCVCInvalidLength(2, expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithZeroCard() {
+        return DataHelper.generateCardDataWithZeroCard(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithZeroYear() {
+        return DataHelper.generateCardDataWithZeroYear();
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithZeroMonth() {
+        return DataHelper.generateCardDataWithZeroMonth(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithEmptyCard() {
+        return DataHelper.generateCardDataWithEmptyCard(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithEmptyMonth() {
+        return DataHelper.generateCardDataWithEmptyMonth(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithEmptyYear() {
+        return DataHelper.generateCardDataWithEmptyYear(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithEmptyCardOwner() {
+        return DataHelper.generateCardDataWithEmptyCardOwner(expiryYears);
+    }
+
+    @Benchmark
+    public DataHelper.CardData generateCardDataWithEmptyCVC() {
+        return DataHelper.generateCardDataWithEmptyCVC(expiryYears);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.netology.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import ru.netology.helpers.DataHelper;
+
+import java.util.concurrent.TimeUnit;
+
+// стоимость генерации отдельных полей карты; параметры - те же, что в тестах
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FieldGeneratorsBenchmark {
+    int expiryYears = 5;
+    int cardOwnerMaxLength = 27;
+    int cvcLength = 3;
+
+    @Benchmark
+    public String getInvalidSymbolsForNumericFields() {
+        return DataHelper.getInvalidSymbolsForNumericFields();
+    }
+
+    @Benchmark
+    public String getInvalidSymbolsForCharacterFields() {
+        return DataHelper.getInvalidSymbolsForCharacterFields();
+    }
+
+    @Benchmark
+    public String generateCardOwnerEn() {
+        return DataHelper.generateCardOwner("en");
+    }
+
+    @Benchmark
+    public String generateCardOwnerRu() {
+        return DataHelper.generateCardOwner("ru");
+    }
+
+    @Benchmark
+    public String generateNameOnly() {
+        return DataHelper.generateNameOnly("en");
+    }
+
+    @Benchmark
+    public String generateCardOwnerWithFixedLength() {
+        return DataHelper.generateCardOwnerWithFixedLength("en", cardOwnerMaxLength);
+    }
+
+    @Benchmark
+    public String generateMonth() {
+        return DataHelper.generateMonth();
+    }
+
+    @Benchmark
+    public String generateWrongMonth() {
+        return DataHelper.generateWrongMonth();
+    }
+
+    @Benchmark
+    public String generateShiftedYearFromCurrent() {
+        return DataHelper.generateShiftedYearFromCurrent(expiryYears);
+    }
+
+    @Benchmark
+    public String generateNumericCode() {
+        return DataHelper.generateNumericCode(cvcLength);
+    }
+}
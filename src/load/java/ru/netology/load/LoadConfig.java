@@ -0,0 +1,68 @@
+package ru.netology.load;
+
+import lombok.Value;
+import ru.netology.helpers.ApiHelper;
+
+import java.time.Duration;
+import java.util.Locale;
+
+// параметры нагрузки, задаются системными свойствами: gradlew loadTest -Dload.model=open -Dload.rate=200 ...
+@Value
+public class LoadConfig {
+    public enum Model {
+        // фиксированное число "пользователей", каждый отправляет следующую заявку после ответа на предыдущую
+        CLOSED,
+        // заявки отправляются с постоянной частотой независимо от скорости ответов SUT
+        OPEN
+    }
+
+    private String host;
+    private Model model;
+    private ApiHelper.Operation operation;
+    // доля кредитных заявок при operation = null (смешанная нагрузка)
+    private double creditRatio;
+    private double declinedRatio;
+    private int users;
+    private int ratePerSecond;
+    private int maxInFlight;
+    private Duration warmUp;
+    private Duration duration;
+    // сколько после окончания замера ждать ответов на уже отправленные заявки
+    private Duration drainTimeout;
+    private String reportPath;
+    // корпус заранее сгенерированных данных (задача generateCorpus); если не задан, данные генерируются на лету
+    private String corpusPath;
+
+    public static LoadConfig fromSystemProperties() {
+        var operation = System.getProperty("load.operation", "mixed").toUpperCase(Locale.ROOT);
+        var config = new LoadConfig(
+                System.getProperty("load.host", System.getProperty("sut.url", "http://localhost:8080")),
+                Model.valueOf(System.getProperty("load.model", "closed").toUpperCase(Locale.ROOT)),
+                "MIXED".equals(operation) ? null : ApiHelper.Operation.valueOf(operation),
+                Double.parseDouble(System.getProperty("load.creditRatio", "0.5")),
+                Double.parseDouble(System.getProperty("load.declinedRatio", "0.1")),
+                Integer.getInteger("load.users", 50),
+                Integer.getInteger("load.rate", 200),
+                Integer.getInteger("load.maxInFlight", 1000),
+                Duration.ofSeconds(Long.getLong("load.warmUpSec", 10)),
+                Duration.ofSeconds(Long.getLong("load.durationSec", 60)),
+                Duration.ofSeconds(Long.getLong("load.drainTimeoutSec", 60)),
+                System.getProperty("load.report", "build/reports/load/load-report.json"),
+                System.getProperty("load.corpus"));
+        config.validate();
+        return config;
+    }
+
+    // период открытой модели - секунда / rate в наносекундах, поэтому rate должен быть от 1 до 10^9
+    private void validate() {
+        if (ratePerSecond <= 0 || ratePerSecond > 1_000_000_000) {
+            throw new IllegalArgumentException("load.rate должен быть от 1 до 1000000000 заявок в секунду: " + ratePerSecond);
+        }
+        if (users <= 0) {
+            throw new IllegalArgumentException("load.users должен быть положительным: " + users);
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("load.maxInFlight должен быть положительным: " + maxInFlight);
+        }
+    }
+}
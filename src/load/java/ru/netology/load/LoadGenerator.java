@@ -0,0 +1,197 @@
+package ru.netology.load;
+
+import com.google.gson.GsonBuilder;
+import ru.netology.helpers.ApiHelper;
+import ru.netology.helpers.DataHelper;
+import ru.netology.load.corpus.CardCorpus;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+// генератор нагрузки: покупки и кредиты через API SUT с данными карт из DataHelper;
+// запросы неблокирующие (HttpClient.sendAsync), поэтому сотни одновременных заявок не требуют сотен потоков
+public class LoadGenerator {
+    private final LoadConfig config;
+    // тела запросов в JSON (UTF-8): из корпуса они собираются без промежуточных объектов
+    private final Supplier<byte[]> approvedBodies;
+    private final Supplier<byte[]> declinedBodies;
+    private volatile LoadStats stats = new LoadStats();
+
+    public LoadGenerator(LoadConfig config, Supplier<byte[]> approvedBodies, Supplier<byte[]> declinedBodies) {
+        this.config = config;
+        this.approvedBodies = approvedBodies;
+        this.declinedBodies = declinedBodies;
+    }
+
+    public static void main(String[] args) throws Exception {
+        var config = LoadConfig.fromSystemProperties();
+        LoadStats.Report report;
+        if (config.getCorpusPath() != null) {
+            // доли отклоняемых и невалидных карт уже заложены в корпус при генерации, load.declinedRatio не используется
+            try (var corpus = CardCorpus.open(Path.of(config.getCorpusPath()))) {
+                Supplier<byte[]> bodies = () -> corpus.next().toJsonBody();
+                report = new LoadGenerator(config, bodies, bodies).run();
+            }
+        } else {
+            int expiryYears = 5;
+            report = new LoadGenerator(config,
+                    () -> jsonBody(DataHelper.generateValidCardData(expiryYears)),
+                    () -> jsonBody(DataHelper.generateCardDataWithDeclinedCard(expiryYears))).run();
+        }
+
+        var json = new GsonBuilder().setPrettyPrinting().create().toJson(report);
+        System.out.println(json);
+        var reportPath = Path.of(config.getReportPath());
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        Files.writeString(reportPath, json, StandardCharsets.UTF_8);
+        System.out.println("Отчёт о нагрузке: " + reportPath.toAbsolutePath());
+    }
+
+    // сначала прогрев (его результаты отбрасываются), затем основной замер
+    public LoadStats.Report run() throws InterruptedException, IOException {
+        if (!config.getWarmUp().isZero()) {
+            runFor(config.getWarmUp().toNanos());
+            stats = new LoadStats();
+        }
+        long start = System.nanoTime();
+        runFor(config.getDuration().toNanos());
+        return stats.toReport(config, (System.nanoTime() - start) / 1e9);
+    }
+
+    private void runFor(long durationNanos) throws InterruptedException {
+        if (config.getModel() == LoadConfig.Model.CLOSED) {
+            runClosed(durationNanos);
+        } else {
+            runOpen(durationNanos);
+        }
+    }
+
+    private ApiHelper.Operation nextOperation() {
+        if (config.getOperation() != null) {
+            return config.getOperation();
+        }
+        return ThreadLocalRandom.current().nextDouble() < config.getCreditRatio() ? ApiHelper.Operation.CREDIT : ApiHelper.Operation.PAYMENT;
+    }
+
+    private static byte[] jsonBody(DataHelper.CardData data) {
+        return ApiHelper.toJson(data).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] nextBody() {
+        return ThreadLocalRandom.current().nextDouble() < config.getDeclinedRatio() ? declinedBodies.get() : approvedBodies.get();
+    }
+
+    // задержка считается от момента, когда заявка должна была уйти (intendedStart), а не от фактической отправки,
+    // иначе замедление SUT в открытой модели скрывается (coordinated omission);
+    // ошибка до отправки (генерация данных, построение запроса) тоже попадает в статистику, а не теряется в future
+    private CompletableFuture<Void> send(long intendedStart) {
+        var currentStats = stats;
+        try {
+            var operation = nextOperation();
+            return ApiHelper.sendAsync(config.getHost(), operation, nextBody())
+                    .handle((response, error) -> {
+                        if (error != null) {
+                            currentStats.recordFailure(error);
+                        } else {
+                            currentStats.recordResponse(operation, response, System.nanoTime() - intendedStart);
+                        }
+                        return null;
+                    });
+        } catch (RuntimeException e) {
+            currentStats.recordFailure(e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    // замкнутая модель: каждый пользователь отправляет следующую заявку сразу после ответа на предыдущую
+    private void runClosed(long durationNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + durationNanos;
+        var finished = new Semaphore(0);
+        for (int i = 0; i < config.getUsers(); i++) {
+            userLoop(deadline, finished);
+        }
+        long waitNanos = durationNanos + config.getDrainTimeout().toNanos();
+        if (!finished.tryAcquire(config.getUsers(), waitNanos, TimeUnit.NANOSECONDS)) {
+            // у каждого незавершённого пользователя висит одна заявка
+            stats.recordUnfinished(config.getUsers() - finished.availablePermits());
+        }
+    }
+
+    // пользователь завершается (release) и при ошибке, иначе runClosed ждал бы его до конца таймаута
+    private void userLoop(long deadline, Semaphore finished) {
+        try {
+            if (System.nanoTime() - deadline >= 0) {
+                finished.release();
+                return;
+            }
+            send(System.nanoTime()).whenCompleteAsync((ignored, error) -> userLoop(deadline, finished));
+        } catch (RuntimeException e) {
+            stats.recordFailure(e);
+            finished.release();
+        }
+    }
+
+    // открытая модель: заявки уходят по расписанию с постоянной частотой; число одновременных запросов ограничено maxInFlight
+    private void runOpen(long durationNanos) throws InterruptedException {
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / config.getRatePerSecond();
+        long start = System.nanoTime();
+        long total = durationNanos / periodNanos;
+        var inFlight = new Semaphore(config.getMaxInFlight());
+        var scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "load-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var stopped = new AtomicBoolean();
+        var sent = new long[1];
+        // исключение из задачи scheduleAtFixedRate молча отменяет расписание, поэтому ошибки ловятся внутри
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                // если планировщик отстал, досылаем все заявки, время которых уже наступило
+                long due = Math.min(total, (System.nanoTime() - start) / periodNanos + 1);
+                for (; sent[0] < due; sent[0]++) {
+                    long intendedStart = start + sent[0] * periodNanos;
+                    if (!inFlight.tryAcquire()) {
+                        stats.recordDropped();
+                        continue;
+                    }
+                    try {
+                        send(intendedStart).whenComplete((ignored, error) -> inFlight.release());
+                    } catch (RuntimeException e) {
+                        inFlight.release();
+                        stats.recordFailure(e);
+                    }
+                }
+                if (sent[0] >= total) {
+                    stopped.set(true);
+                }
+            } catch (RuntimeException e) {
+                stats.recordFailure(e);
+                stopped.set(true);
+            }
+        }, 0, Math.max(periodNanos, TimeUnit.MILLISECONDS.toNanos(1)), TimeUnit.NANOSECONDS);
+
+        long deadline = start + durationNanos + config.getDrainTimeout().toNanos();
+        try {
+            while (!stopped.get() && System.nanoTime() - deadline < 0) {
+                Thread.sleep(50);
+            }
+        } finally {
+            scheduler.shutdownNow();
+        }
+        // дожидаемся ответов на уже отправленные заявки, но не дольше drainTimeout
+        long remaining = Math.max(0, deadline - System.nanoTime());
+        if (!inFlight.tryAcquire(config.getMaxInFlight(), remaining, TimeUnit.NANOSECONDS)) {
+            stats.recordUnfinished(config.getMaxInFlight() - inFlight.availablePermits());
+        }
+    }
+}
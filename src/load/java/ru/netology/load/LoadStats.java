@@ -0,0 +1,94 @@
+package ru.netology.load;
+
+import lombok.Value;
+import ru.netology.helpers.ApiHelper;
+import ru.netology.metrics.LatencyHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// результаты прогона: задержки по операциям, коды ответов, статусы банка и ошибки
+public class LoadStats {
+    private final Map<ApiHelper.Operation, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public void recordResponse(ApiHelper.Operation operation, ApiHelper.Response response, long latencyNanos) {
+        latencies.computeIfAbsent(operation, key -> new LatencyHistogram()).record(latencyNanos);
+        total.record(latencyNanos);
+        if (response.getStatusCode() != 200) {
+            errors.increment();
+            count("http " + response.getStatusCode());
+        } else {
+            count(response.getStatus() == null ? "no status" : response.getStatus());
+        }
+    }
+
+    public void recordFailure(Throwable error) {
+        errors.increment();
+        var cause = error.getCause() != null ? error.getCause() : error;
+        count(cause.getClass().getSimpleName());
+    }
+
+    // открытая модель: заявка не отправлена, потому что достигнут предел одновременных запросов
+    public void recordDropped() {
+        dropped.increment();
+        errors.increment();
+        count("dropped");
+    }
+
+    // заявки, ответ на которые не пришёл за load.drainTimeoutSec после окончания замера
+    public void recordUnfinished(long count) {
+        if (count > 0) {
+            errors.add(count);
+            outcomes.computeIfAbsent("unfinished", key -> new LongAdder()).add(count);
+        }
+    }
+
+    private void count(String outcome) {
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    public Report toReport(LoadConfig config, double elapsedSec) {
+        long requests = total.getCount() + dropped.sum() + failuresWithoutResponse();
+        var perOperation = new TreeMap<String, LatencyHistogram.Summary>();
+        latencies.forEach((operation, histogram) -> perOperation.put(operation.name(), histogram.getSummary()));
+        var outcomeCounts = new TreeMap<String, Long>();
+        outcomes.forEach((outcome, counter) -> outcomeCounts.put(outcome, counter.sum()));
+        return new Report(
+                config.getModel().name(),
+                config.getModel() == LoadConfig.Model.CLOSED ? config.getUsers() : config.getRatePerSecond(),
+                Math.round(elapsedSec * 10) / 10.0,
+                requests,
+                Math.round(total.getCount() / elapsedSec * 10) / 10.0,
+                requests == 0 ? 0 : Math.round(errors.sum() * 10000.0 / requests) / 100.0,
+                total.getSummary(),
+                perOperation,
+                outcomeCounts);
+    }
+
+    private long failuresWithoutResponse() {
+        return errors.sum() - dropped.sum() - outcomes.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith("http "))
+                .mapToLong(entry -> entry.getValue().sum())
+                .sum();
+    }
+
+    @Value
+    public static class Report {
+        private String model;
+        // число пользователей (closed) или заявок в секунду (open)
+        private int load;
+        private double durationSec;
+        private long requests;
+        private double throughputPerSec;
+        private double errorRatePercent;
+        private LatencyHistogram.Summary latency;
+        private Map<String, LatencyHistogram.Summary> latencyByOperation;
+        private Map<String, Long> outcomes;
+    }
+}
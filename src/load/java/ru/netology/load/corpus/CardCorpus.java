@@ -0,0 +1,202 @@
+package ru.netology.load.corpus;
+
+import ru.netology.helpers.DataHelper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// чтение корпуса, отображённого в память: записи раздаются потокам без блокировок (общий AtomicLong-курсор),
+// а вместо объекта на каждую запись поток получает свой переиспользуемый Record, указывающий на её байты;
+// генератор нагрузки берёт из Record сразу тело запроса (toJsonBody), строки полей нужны только для toCardData
+public class CardCorpus implements AutoCloseable {
+    private static final CorpusCategory[] categories = CorpusCategory.values();
+
+    // ключи тела запроса в порядке полей записи, как в ApiHelper.toJson
+    private static final byte[][] jsonPrefixes = {
+            ascii("{\"number\":"), ascii(",\"month\":"), ascii(",\"year\":"), ascii(",\"holder\":"), ascii(",\"cvc\":")};
+    private static final byte[] jsonNull = ascii("null");
+    private static final byte[] hexDigits = ascii("0123456789abcdef");
+    // самое длинное тело: каждый байт поля экранирован шестью байтами, плюс кавычки и закрывающая скобка
+    private static final int maxJsonLength = Arrays.stream(jsonPrefixes).mapToInt(prefix -> prefix.length).sum()
+            + Arrays.stream(CorpusFormat.fieldWidths).map(width -> 2 + 6 * width).sum() + 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int recordsPerSegment;
+    private final long recordCount;
+    private final AtomicLong cursor = new AtomicLong();
+    private final ThreadLocal<Record> views = ThreadLocal.withInitial(Record::new);
+
+    private CardCorpus(FileChannel channel, long recordCount) throws IOException {
+        this.channel = channel;
+        this.recordCount = recordCount;
+        // один MappedByteBuffer адресует не больше 2 ГБ, поэтому большой файл отображается сегментами из целых записей
+        recordsPerSegment = Integer.MAX_VALUE / CorpusFormat.recordSize;
+        int segmentCount = (int) ((recordCount + recordsPerSegment - 1) / recordsPerSegment);
+        segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long first = (long) i * recordsPerSegment;
+            long records = Math.min(recordsPerSegment, recordCount - first);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    CorpusFormat.headerSize + first * CorpusFormat.recordSize, records * CorpusFormat.recordSize);
+        }
+    }
+
+    public static CardCorpus open(Path path) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            var header = ByteBuffer.allocate(CorpusFormat.headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // читаем заголовок целиком
+            }
+            header.flip();
+            if (header.remaining() < CorpusFormat.headerSize || header.getInt() != CorpusFormat.magic) {
+                throw new IOException("Файл не является корпусом данных карт: " + path);
+            }
+            int version = header.getInt();
+            int recordSize = header.getInt();
+            long recordCount = header.getLong();
+            if (version != CorpusFormat.version || recordSize != CorpusFormat.recordSize) {
+                throw new IOException("Корпус " + path + " записан в другом формате (версия " + version +
+                        ", запись " + recordSize + " байт), пересоздайте его задачей generateCorpus");
+            }
+            if (recordCount <= 0 || channel.size() < CorpusFormat.headerSize + recordCount * recordSize) {
+                throw new IOException("Корпус " + path + " пуст или обрезан");
+            }
+            return new CardCorpus(channel, recordCount);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return recordCount;
+    }
+
+    // следующая запись; дойдя до конца, корпус читается по кругу (для долгих прогонов)
+    public Record next() {
+        return at(Math.floorMod(cursor.getAndIncrement(), recordCount));
+    }
+
+    // Record принадлежит текущему потоку и действителен до его следующего вызова next() или at()
+    public Record at(long index) {
+        if (index < 0 || index >= recordCount) {
+            throw new IndexOutOfBoundsException("Нет записи " + index + " в корпусе из " + recordCount);
+        }
+        var view = views.get();
+        view.segment = segments[(int) (index / recordsPerSegment)];
+        view.offset = (int) (index % recordsPerSegment) * CorpusFormat.recordSize;
+        return view;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public static class Record {
+        private final byte[] scratch = new byte[CorpusFormat.maxFieldWidth];
+        private final byte[] json = new byte[maxJsonLength];
+        private ByteBuffer segment;
+        private int offset;
+
+        public CorpusCategory getCategory() {
+            return categories[segment.get(offset)];
+        }
+
+        public String getCardNumber() {
+            return getField(CorpusFormat.numberField);
+        }
+
+        public String getMonth() {
+            return getField(CorpusFormat.monthField);
+        }
+
+        public String getYear() {
+            return getField(CorpusFormat.yearField);
+        }
+
+        public String getCardOwner() {
+            return getField(CorpusFormat.ownerField);
+        }
+
+        public String getCvc() {
+            return getField(CorpusFormat.cvcField);
+        }
+
+        public DataHelper.CardData toCardData() {
+            return new DataHelper.CardData(getCardNumber(), getMonth(), getYear(), getCardOwner(), getCvc());
+        }
+
+        // тело запроса к API собирается прямо из байтов записи, без String на каждое поле и без CardData;
+        // новый массив - только само тело, потому что HttpClient читает его асинхронно, уже после следующего next()
+        public byte[] toJsonBody() {
+            int length = 0;
+            for (int field = 0; field < jsonPrefixes.length; field++) {
+                length = put(jsonPrefixes[field], length);
+                length = putJsonValue(field, length);
+            }
+            json[length++] = '}';
+            return Arrays.copyOf(json, length);
+        }
+
+        private int put(byte[] bytes, int position) {
+            System.arraycopy(bytes, 0, json, position, bytes.length);
+            return position + bytes.length;
+        }
+
+        // поле уже в UTF-8: многобайтные символы копируются как есть, экранируются только кавычка, обратная косая черта и управляющие символы
+        private int putJsonValue(int field, int position) {
+            int fieldOffset = offset + CorpusFormat.fieldOffsets[field];
+            byte length = segment.get(fieldOffset);
+            if (length == CorpusFormat.nullLength) {
+                return put(jsonNull, position);
+            }
+            json[position++] = '"';
+            for (int i = 0; i < length; i++) {
+                byte b = segment.get(fieldOffset + 1 + i);
+                if (b == '"' || b == '\\') {
+                    json[position++] = '\\';
+                    json[position++] = b;
+                } else if (b >= 0 && b < 0x20) {
+                    json[position++] = '\\';
+                    json[position++] = 'u';
+                    json[position++] = '0';
+                    json[position++] = '0';
+                    json[position++] = hexDigits[b >> 4];
+                    json[position++] = hexDigits[b & 0xF];
+                } else {
+                    json[position++] = b;
+                }
+            }
+            json[position++] = '"';
+            return position;
+        }
+
+        // абсолютные get не меняют позицию буфера, поэтому один сегмент безопасно читают все потоки
+        private String getField(int field) {
+            int fieldOffset = offset + CorpusFormat.fieldOffsets[field];
+            byte length = segment.get(fieldOffset);
+            if (length == CorpusFormat.nullLength) {
+                return null;
+            }
+            for (int i = 0; i < length; i++) {
+                scratch[i] = segment.get(fieldOffset + 1 + i);
+            }
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.netology.load.corpus;
+
+import ru.netology.helpers.DataHelper;
+
+import java.util.function.Supplier;
+
+// категории данных в корпусе: валидные варианты, отклоняемая карта и каждый невалидный вариант из DataHelper
+public enum CorpusCategory {
+    VALID(() -> DataHelper.generateValidCardData(CorpusCategory.expiryYears)),
+    DECLINED(() -> DataHelper.generateCardDataWithDeclinedCard(CorpusCategory.expiryYears)),
+    OWNER_TOO_LONG(() -> DataHelper.generateCardDataWithCardOwnerFixedLength(28, CorpusCategory.expiryYears)),
+    OWNER_CYRILLIC(() -> DataHelper.generateCardDataWithInvalidCardOwnerLocale("ru", CorpusCategory.expiryYears)),
+    OWNER_SYMBOLS(() -> DataHelper.generateCardDataWithInvalidCardOwnerSymbols(CorpusCategory.expiryYears)),
+    OWNER_SPACES(() -> DataHelper.generateCardDataWithCardOwnerSpaces(CorpusCategory.expiryYears)),
+    OWNER_INCOMPLETE(() -> DataHelper.generateCardDataWithIncompleteCardOwner(CorpusCategory.expiryYears)),
+    EXPIRED_MONTH(() -> DataHelper.generateCardDataWithShiftedMonthFromCurrent(-1)),
+    EXPIRED_YEAR(() -> DataHelper.generateCardDataWithShiftedYearFromCurrent(-1)),
+    ZERO_CVC(() -> DataHelper.generateCardDataWithZeroCVC(CorpusCategory.expiryYears)),
+    NUMBER_INCOMPLETE(() -> DataHelper.generateCardDataWithIncompleteNumber(CorpusCategory.expiryYears, 15)),
+    WRONG_MONTH(() -> DataHelper.generateCardDataWithWrongMonth(CorpusCategory.expiryYears)),
+    MONTH_INVALID_LENGTH(() -> DataHelper.generateCardDataWithMonthInvalidLength(1, CorpusCategory.expiryYears)),
+    YEAR_INVALID_LENGTH(() -> DataHelper.generateCardDataWithYearInvalidLength(1)),
+    CVC_INVALID_LENGTH(() -> DataHelper.generateCardDataWithCVCInvalidLength(2, CorpusCategory.expiryYears)),
+    ZERO_CARD(() -> DataHelper.generateCardDataWithZeroCard(CorpusCategory.expiryYears)),
+    ZERO_YEAR(DataHelper::generateCardDataWithZeroYear),
+    ZERO_MONTH(() -> DataHelper.generateCardDataWithZeroMonth(CorpusCategory.expiryYears)),
+    EMPTY_CARD(() -> DataHelper.generateCardDataWithEmptyCard(CorpusCategory.expiryYears)),
+    EMPTY_MONTH(() -> DataHelper.generateCardDataWithEmptyMonth(CorpusCategory.expiryYears)),
+    EMPTY_YEAR(() -> DataHelper.generateCardDataWithEmptyYear(CorpusCategory.expiryYears)),
+    EMPTY_OWNER(() -> DataHelper.generateCardDataWithEmptyCardOwner(CorpusCategory.expiryYears)),
+    EMPTY_CVC(() -> DataHelper.generateCardDataWithEmptyCVC(CorpusCategory.expiryYears));
+
+    private static final int expiryYears = 5;
+
+    private final Supplier<DataHelper.CardData> generator;
+
+    CorpusCategory(Supplier<DataHelper.CardData> generator) {
+        this.generator = generator;
+    }
+
+    public DataHelper.CardData generate() {
+        return generator.get();
+    }
+
+    // нулевой CVC - валидная карта: тесты ожидают по ней APPROVED
+    public boolean isValid() {
+        return this == VALID || this == ZERO_CVC;
+    }
+
+    public boolean isInvalid() {
+        return !isValid() && this != DECLINED;
+    }
+}
@@ -0,0 +1,51 @@
+package ru.netology.load.corpus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// формат файла корпуса: заголовок и записи фиксированной длины, поэтому запись с номером i читается по смещению без разбора файла;
+// запись = байт категории + поля (байт длины + UTF-8, дополненные нулями до ширины поля), длина 0xFF - поле null
+final class CorpusFormat {
+    private CorpusFormat() {
+    }
+
+    static final int magic = 0x4E43524D;
+    static final int version = 1;
+    // magic, version, recordSize, recordCount
+    static final int headerSize = 4 + 4 + 4 + 8;
+
+    static final byte nullLength = (byte) 0xFF;
+
+    static final int numberField = 0;
+    static final int monthField = 1;
+    static final int yearField = 2;
+    static final int ownerField = 3;
+    static final int cvcField = 4;
+
+    // ширина полей в байтах UTF-8: номер карты, месяц, год, владелец, CVC
+    static final int[] fieldWidths = {24, 4, 4, 96, 8};
+    static final int[] fieldOffsets = new int[fieldWidths.length];
+    static final int maxFieldWidth = Arrays.stream(fieldWidths).max().getAsInt();
+    static final int recordSize;
+
+    static {
+        int offset = 1;
+        for (int i = 0; i < fieldWidths.length; i++) {
+            fieldOffsets[i] = offset;
+            offset += 1 + fieldWidths[i];
+        }
+        // выравнивание записи по 8 байт
+        recordSize = (offset + 7) & ~7;
+    }
+
+    static byte[] encode(String value, int field) {
+        if (value == null) {
+            return null;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > fieldWidths[field]) {
+            throw new IllegalArgumentException("Значение длиннее поля корпуса (" + fieldWidths[field] + " байт): " + value);
+        }
+        return bytes;
+    }
+}
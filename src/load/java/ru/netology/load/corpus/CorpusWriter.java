@@ -0,0 +1,121 @@
+package ru.netology.load.corpus;
+
+import ru.netology.helpers.CardDataGenerator;
+import ru.netology.helpers.DataHelper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+// заранее генерирует корпус данных карт для долгих нагрузочных прогонов:
+// gradlew generateCorpus -Dcorpus.records=1000000 -Dcorpus.declinedRatio=0.1 -Dcorpus.invalidRatio=0.1
+public class CorpusWriter {
+    private static final int bufferRecords = 8192;
+
+    private final double declinedRatio;
+    private final double invalidRatio;
+    private final CorpusCategory[] validCategories = Arrays.stream(CorpusCategory.values())
+            .filter(CorpusCategory::isValid)
+            .toArray(CorpusCategory[]::new);
+    private final CorpusCategory[] invalidCategories = Arrays.stream(CorpusCategory.values())
+            .filter(CorpusCategory::isInvalid)
+            .toArray(CorpusCategory[]::new);
+    private final Map<CorpusCategory, Long> written = new EnumMap<>(CorpusCategory.class);
+
+    public CorpusWriter(double declinedRatio, double invalidRatio) {
+        if (declinedRatio < 0 || invalidRatio < 0 || declinedRatio + invalidRatio > 1) {
+            throw new IllegalArgumentException("Доли отклоняемых и невалидных карт должны быть в [0, 1] и в сумме не больше 1");
+        }
+        this.declinedRatio = declinedRatio;
+        this.invalidRatio = invalidRatio;
+    }
+
+    public static void main(String[] args) throws IOException {
+        var path = Path.of(System.getProperty("corpus.path", "build/corpus/cards.bin"));
+        long records = Long.getLong("corpus.records", 1_000_000);
+        var writer = new CorpusWriter(
+                Double.parseDouble(System.getProperty("corpus.declinedRatio", "0.1")),
+                Double.parseDouble(System.getProperty("corpus.invalidRatio", "0.1")));
+        // корпус воспроизводится тем же -Ddata.seed
+        CardDataGenerator.reseed(CardDataGenerator.seedFor("corpus"));
+
+        long start = System.nanoTime();
+        writer.write(path, records);
+        System.out.printf("Корпус %s: %d записей по %d байт за %.1f с, seed %d%n",
+                path.toAbsolutePath(), records, CorpusFormat.recordSize, (System.nanoTime() - start) / 1e9,
+                CardDataGenerator.getGlobalSeed());
+        System.out.println("Категории: " + writer.written);
+    }
+
+    public void write(Path path, long records) throws IOException {
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var header = ByteBuffer.allocate(CorpusFormat.headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(CorpusFormat.magic).putInt(CorpusFormat.version).putInt(CorpusFormat.recordSize).putLong(records).flip();
+            writeFully(channel, header);
+
+            var buffer = ByteBuffer.allocateDirect(CorpusFormat.recordSize * bufferRecords);
+            for (long i = 0; i < records; i++) {
+                var category = nextCategory();
+                putRecord(buffer, category, category.generate());
+                written.merge(category, 1L, Long::sum);
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    writeFully(channel, buffer);
+                    buffer.clear();
+                }
+            }
+            buffer.flip();
+            writeFully(channel, buffer);
+        }
+    }
+
+    private CorpusCategory nextCategory() {
+        double roll = CardDataGenerator.random().nextDouble();
+        if (roll < invalidRatio) {
+            return invalidCategories[CardDataGenerator.nextInt(invalidCategories.length)];
+        }
+        if (roll < invalidRatio + declinedRatio) {
+            return CorpusCategory.DECLINED;
+        }
+        return validCategories[CardDataGenerator.nextInt(validCategories.length)];
+    }
+
+    private static void putRecord(ByteBuffer buffer, CorpusCategory category, DataHelper.CardData data) {
+        int start = buffer.position();
+        buffer.put(start, (byte) category.ordinal());
+        putField(buffer, start, CorpusFormat.numberField, data.getCardNumber());
+        putField(buffer, start, CorpusFormat.monthField, data.getMonth());
+        putField(buffer, start, CorpusFormat.yearField, data.getYear());
+        putField(buffer, start, CorpusFormat.ownerField, data.getCardOwner());
+        putField(buffer, start, CorpusFormat.cvcField, data.getCvc());
+        buffer.position(start + CorpusFormat.recordSize);
+    }
+
+    // буфер переиспользуется, поэтому хвост поля обнуляется явно
+    private static void putField(ByteBuffer buffer, int recordStart, int field, String value) {
+        int offset = recordStart + CorpusFormat.fieldOffsets[field];
+        var bytes = CorpusFormat.encode(value, field);
+        buffer.put(offset, bytes == null ? CorpusFormat.nullLength : (byte) bytes.length);
+        int length = bytes == null ? 0 : bytes.length;
+        for (int i = 0; i < CorpusFormat.fieldWidths[field]; i++) {
+            buffer.put(offset + 1 + i, i < length ? bytes[i] : 0);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
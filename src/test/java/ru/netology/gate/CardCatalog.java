@@ -0,0 +1,269 @@
+package ru.netology.gate;
+
+import com.google.gson.stream.JsonReader;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// каталог карт шлюза, рассчитанный на миллионы записей:
+// - файл читается потоково (JsonReader), а не разбирается целиком в память;
+// - номер вида "dddd dddd dddd dddd" (или просто до 18 цифр) хранится как long в открытой адресации,
+//   статус - байтом: 9 байт на слот (10-25 байт на карту с учётом запаса таблицы) вместо ~150 байт строк и узлов HashMap;
+// - номера, которых нет в каталоге, получают статус по правилам BIN-диапазонов
+public class CardCatalog {
+    private static final byte empty = 0;
+    // старший бит байта статуса: номер записан группами по 4 цифры через пробел
+    private static final byte groupedFlag = (byte) 0x80;
+    private static final int maxStatuses = 0x7F;
+    private static final double maxLoadFactor = 0.7;
+    // long вмещает любое число из 18 цифр
+    private static final int maxPackedDigits = 18;
+
+    private final List<String> statusNames = new ArrayList<>();
+    private final Map<String, Byte> statusCodes = new HashMap<>();
+    // номера, которые не удаётся упаковать в long (буквы, больше 18 цифр, нестандартные пробелы)
+    private final Map<String, Byte> irregular = new HashMap<>();
+    private final List<BinRule> rules;
+
+    private long[] keys;
+    private byte[] statuses;
+    private int size;
+
+    public CardCatalog(List<BinRule> rules) {
+        this.rules = List.copyOf(rules);
+        keys = new long[1024];
+        statuses = new byte[1024];
+        statusNames.add(null);
+    }
+
+    // [{"number": "4444 4444 4444 4441", "status": "APPROVED"}, ...] - формат gate-simulator/data.json
+    public static CardCatalog load(Path data, List<BinRule> rules) throws IOException {
+        var catalog = new CardCatalog(rules);
+        try (var reader = new JsonReader(Files.newBufferedReader(data, StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                String number = null;
+                String status = null;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "number":
+                            number = reader.nextString();
+                            break;
+                        case "status":
+                            status = reader.nextString();
+                            break;
+                        default:
+                            reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (number != null && status != null) {
+                    catalog.putIfAbsent(number, status);
+                }
+            }
+            reader.endArray();
+        }
+        return catalog;
+    }
+
+    public int size() {
+        return size + irregular.size();
+    }
+
+    // как и filter(...)[0] в app.js, при повторах номера остаётся первая запись
+    public void putIfAbsent(String number, String status) {
+        byte code = statusCode(status);
+        long key = pack(number);
+        if (key < 0) {
+            irregular.putIfAbsent(number, code);
+            return;
+        }
+        if (size + 1 > keys.length * maxLoadFactor) {
+            resize();
+        }
+        insert(key, (byte) (code | (isGrouped(number) ? groupedFlag : 0)));
+    }
+
+    // статус карты или null, если карта неизвестна шлюзу (ответ 400)
+    public String getStatus(String number) {
+        if (number == null) {
+            return null;
+        }
+        long key = pack(number);
+        if (key < 0) {
+            var code = irregular.get(number);
+            return code == null ? null : statusNames.get(code);
+        }
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; statuses[slot] != empty; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                // "4444444444444441" и "4444 4444 4444 4441" - разные номера, как и при сравнении строк в app.js
+                boolean grouped = (statuses[slot] & groupedFlag) != 0;
+                if (grouped == isGrouped(number)) {
+                    return statusNames.get(statuses[slot] & maxStatuses);
+                }
+            }
+        }
+        return statusByRules(number, key);
+    }
+
+    private String statusByRules(String number, long key) {
+        if (rules.isEmpty()) {
+            return null;
+        }
+        int digits = digitCount(number);
+        if (digits < 6) {
+            return null;
+        }
+        long bin = key;
+        for (int i = digits; i > 6; i--) {
+            bin /= 10;
+        }
+        for (BinRule rule : rules) {
+            if (bin >= rule.getBinFrom() && bin <= rule.getBinTo()) {
+                // статус зависит только от номера: повторный запрос с той же картой даёт тот же ответ
+                double roll = (mix(~key) >>> 11) * 0x1.0p-53;
+                return roll < rule.getDeclinedRatio() ? "DECLINED" : "APPROVED";
+            }
+        }
+        return null;
+    }
+
+    private byte statusCode(String status) {
+        var code = statusCodes.get(status);
+        if (code == null) {
+            if (statusNames.size() > maxStatuses) {
+                throw new IllegalArgumentException("Слишком много разных статусов в каталоге карт: " + statusNames.size());
+            }
+            code = (byte) statusNames.size();
+            statusNames.add(status);
+            statusCodes.put(status, code);
+        }
+        return code;
+    }
+
+    private void insert(long key, byte status) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        for (; statuses[slot] != empty; slot = (slot + 1) & mask) {
+            if (keys[slot] == key && (statuses[slot] & groupedFlag) == (status & groupedFlag)) {
+                return;
+            }
+        }
+        keys[slot] = key;
+        statuses[slot] = status;
+        size++;
+    }
+
+    private void resize() {
+        var oldKeys = keys;
+        var oldStatuses = statuses;
+        keys = new long[oldKeys.length * 2];
+        statuses = new byte[oldStatuses.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStatuses[i] != empty) {
+                insert(oldKeys[i], oldStatuses[i]);
+            }
+        }
+    }
+
+    // цифры номера как long; -1, если номер не из цифр или пробелы стоят не через каждые 4 цифры
+    private static long pack(String number) {
+        int length = number.length();
+        if (length == 0) {
+            return -1;
+        }
+        boolean grouped = isGrouped(number);
+        if (grouped && number.charAt(length - 1) == ' ') {
+            return -1;
+        }
+        long key = 0;
+        int digits = 0;
+        for (int i = 0; i < length; i++) {
+            char c = number.charAt(i);
+            if (grouped && i % 5 == 4) {
+                if (c != ' ') {
+                    return -1;
+                }
+                continue;
+            }
+            if (c < '0' || c > '9' || ++digits > maxPackedDigits) {
+                return -1;
+            }
+            key = key * 10 + (c - '0');
+        }
+        // ведущие нули потерялись бы в long, такие номера храним как строки
+        return number.charAt(0) == '0' && digits > 1 ? -1 : key;
+    }
+
+    private static boolean isGrouped(String number) {
+        return number.length() > 4 && number.charAt(4) == ' ';
+    }
+
+    private static int digitCount(String number) {
+        int digits = 0;
+        for (int i = 0; i < number.length(); i++) {
+            if (number.charAt(i) != ' ') {
+                digits++;
+            }
+        }
+        return digits;
+    }
+
+    private static int hash(long key) {
+        return (int) mix(key);
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // правило для карт вне каталога: номера с BIN (первые 6 цифр) из диапазона одобряются,
+    // кроме доли declinedRatio, которая отклоняется
+    @Value
+    public static class BinRule {
+        private long binFrom;
+        private long binTo;
+        private double declinedRatio;
+
+        // 400000-499999:0.1,510000-559999:0.25 (например, -Dgate.rules=...)
+        public static List<BinRule> parse(String spec) {
+            var rules = new ArrayList<BinRule>();
+            if (spec == null || spec.isBlank()) {
+                return rules;
+            }
+            for (String item : spec.split(",")) {
+                var parts = item.trim().split("[-:]");
+                try {
+                    rules.add(new BinRule(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Double.parseDouble(parts[2])));
+                } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                    throw new IllegalArgumentException("Некорректное правило BIN-диапазона (ожидается 400000-499999:0.1): " + item, e);
+                }
+            }
+            return rules;
+        }
+
+        @Override
+        public String toString() {
+            return binFrom + "-" + binTo + ":" + declinedRatio;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "карт: " + size() + ", статусы: " + statusNames.subList(1, statusNames.size()) + ", правила BIN: " + rules +
+                ", индекс: " + (keys.length * (Long.BYTES + 1L) / 1024) + " КБ";
+    }
+}
@@ -0,0 +1,189 @@
+package ru.netology.gate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// каталог карт должен отвечать так же, как поиск по строкам в app.js симулятора
+public class CardCatalogTest {
+    final String approved = "APPROVED";
+    final String declined = "DECLINED";
+
+    static String grouped(String digits) {
+        var result = new StringBuilder();
+        for (int i = 0; i < digits.length(); i++) {
+            if (i > 0 && i % 4 == 0) {
+                result.append(' ');
+            }
+            result.append(digits.charAt(i));
+        }
+        return result.toString();
+    }
+
+    @Test
+    @DisplayName("Номер с пробелами и тот же номер без пробелов - разные карты")
+    void shouldDistinguishGroupedAndUngroupedNumbers() {
+        var catalog = new CardCatalog(List.of());
+        catalog.putIfAbsent("4444 4444 4444 4441", approved);
+        catalog.putIfAbsent("4444444444444442", declined);
+
+        assertEquals(approved, catalog.getStatus("4444 4444 4444 4441"));
+        assertNull(catalog.getStatus("4444444444444441"));
+        assertEquals(declined, catalog.getStatus("4444444444444442"));
+        assertNull(catalog.getStatus("4444 4444 4444 4442"));
+    }
+
+    @Test
+    @DisplayName("Обе записи одного номера с пробелами и без хранятся независимо")
+    void shouldKeepBothFormsOfSameDigits() {
+        var catalog = new CardCatalog(List.of());
+        catalog.putIfAbsent("4444 4444 4444 4441", approved);
+        catalog.putIfAbsent("4444444444444441", declined);
+
+        assertEquals(2, catalog.size());
+        assertEquals(approved, catalog.getStatus("4444 4444 4444 4441"));
+        assertEquals(declined, catalog.getStatus("4444444444444441"));
+    }
+
+    @Test
+    @DisplayName("При повторе номера остаётся первая запись")
+    void shouldKeepFirstStatusOfDuplicateNumber() {
+        var catalog = new CardCatalog(List.of());
+        catalog.putIfAbsent("4444 4444 4444 4441", approved);
+        catalog.putIfAbsent("4444 4444 4444 4441", declined);
+
+        assertEquals(1, catalog.size());
+        assertEquals(approved, catalog.getStatus("4444 4444 4444 4441"));
+    }
+
+    @Test
+    @DisplayName("Ведущие нули не теряются: номера с нулями и без них - разные карты")
+    void shouldKeepLeadingZeros() {
+        var catalog = new CardCatalog(List.of());
+        catalog.putIfAbsent("0044 4444 4444 4441", approved);
+        catalog.putIfAbsent("004444444444444441", declined);
+        catalog.putIfAbsent("0", approved);
+
+        assertEquals(approved, catalog.getStatus("0044 4444 4444 4441"));
+        assertEquals(declined, catalog.getStatus("004444444444444441"));
+        assertNull(catalog.getStatus("44444444444441"));
+        assertNull(catalog.getStatus("4444444444444441"));
+        assertNull(catalog.getStatus("044 4444 4444 4441"));
+        assertEquals(approved, catalog.getStatus("0"));
+        assertNull(catalog.getStatus("00"));
+    }
+
+    @Test
+    @DisplayName("Номера из 18, 19 и более цифр")
+    void shouldStoreLongNumbers() {
+        var catalog = new CardCatalog(List.of());
+        catalog.putIfAbsent("999999999999999999", approved);
+        catalog.putIfAbsent("4444444444444444441", declined);
+        catalog.putIfAbsent("4444 4444 4444 4444 441", approved);
+        catalog.putIfAbsent("99999999999999999999999", declined);
+
+        assertEquals(approved, catalog.getStatus("999999999999999999"));
+        assertEquals(declined, catalog.getStatus("4444444444444444441"));
+        assertEquals(approved, catalog.getStatus("4444 4444 4444 4444 441"));
+        assertEquals(declined, catalog.getStatus("99999999999999999999999"));
+        // 19 цифр, совпадающих с 18-значным номером в первых цифрах, - другая карта
+        assertNull(catalog.getStatus("9999999999999999999"));
+        assertNull(catalog.getStatus("444444444444444444"));
+    }
+
+    @Test
+    @DisplayName("Номера с нестандартными пробелами и символами ищутся как строки")
+    void shouldStoreIrregularNumbers() {
+        var catalog = new CardCatalog(List.of());
+        catalog.putIfAbsent("4444 4444 4444 4441 ", approved);
+        catalog.putIfAbsent("44444 4444 4444 441", declined);
+        catalog.putIfAbsent("4444-4444-4444-4441", approved);
+
+        assertEquals(approved, catalog.getStatus("4444 4444 4444 4441 "));
+        assertEquals(declined, catalog.getStatus("44444 4444 4444 441"));
+        assertEquals(approved, catalog.getStatus("4444-4444-4444-4441"));
+        assertNull(catalog.getStatus("4444 4444 4444 4441"));
+        assertNull(catalog.getStatus(""));
+        assertNull(catalog.getStatus(null));
+    }
+
+    @Test
+    @DisplayName("После расширения таблицы находятся все номера обоих видов")
+    void shouldFindAllNumbersAfterResize() {
+        var catalog = new CardCatalog(List.of());
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            var digits = String.valueOf(4_000_000_000_000_000L + i * 7919L);
+            catalog.putIfAbsent(digits, i % 2 == 0 ? approved : declined);
+            catalog.putIfAbsent(grouped(digits), i % 3 == 0 ? declined : approved);
+        }
+
+        assertEquals(2 * count, catalog.size());
+        for (int i = 0; i < count; i++) {
+            var digits = String.valueOf(4_000_000_000_000_000L + i * 7919L);
+            assertEquals(i % 2 == 0 ? approved : declined, catalog.getStatus(digits), digits);
+            assertEquals(i % 3 == 0 ? declined : approved, catalog.getStatus(grouped(digits)), digits);
+        }
+        assertNull(catalog.getStatus(String.valueOf(4_000_000_000_000_001L)));
+    }
+
+    @Test
+    @DisplayName("Карты вне каталога получают статус по правилам BIN-диапазонов")
+    void shouldApplyBinRulesToUnknownNumbers() {
+        var catalog = new CardCatalog(CardCatalog.BinRule.parse("400000-499999:0,510000-559999:1"));
+        catalog.putIfAbsent("4444 4444 4444 4441", declined);
+
+        // номер из каталога правилами не переопределяется
+        assertEquals(declined, catalog.getStatus("4444 4444 4444 4441"));
+        assertEquals(approved, catalog.getStatus("4000 0012 3456 7890"));
+        assertEquals(approved, catalog.getStatus("4999991234567890"));
+        assertEquals(declined, catalog.getStatus("5100 0012 3456 7890"));
+        assertEquals(declined, catalog.getStatus("5599991234567890"));
+        // BIN вне диапазонов, меньше 6 цифр, ведущий ноль
+        assertNull(catalog.getStatus("3999 9912 3456 7890"));
+        assertNull(catalog.getStatus("56000012345678"));
+        assertNull(catalog.getStatus("44444"));
+        assertNull(catalog.getStatus("0444 4412 3456 7890"));
+    }
+
+    @Test
+    @DisplayName("Доля отклонённых по правилу BIN близка к заданной, а статус карты не меняется между запросами")
+    void shouldDeclineConfiguredShareDeterministically() {
+        var catalog = new CardCatalog(CardCatalog.BinRule.parse("400000-499999:0.25"));
+        int count = 10_000;
+        int declinedCount = 0;
+        for (int i = 0; i < count; i++) {
+            var number = String.valueOf(4_400_000_000_000_000L + i);
+            var status = catalog.getStatus(number);
+            assertEquals(status, catalog.getStatus(number));
+            if (declined.equals(status)) {
+                declinedCount++;
+            }
+        }
+        assertEquals(0.25, (double) declinedCount / count, 0.02);
+    }
+
+    @Test
+    @DisplayName("Разбор правил BIN-диапазонов")
+    void shouldParseBinRules() {
+        var rules = CardCatalog.BinRule.parse(" 400000-499999:0.1, 510000-559999:0.25 ");
+
+        assertEquals(2, rules.size());
+        assertEquals(400000, rules.get(0).getBinFrom());
+        assertEquals(499999, rules.get(0).getBinTo());
+        assertEquals(0.1, rules.get(0).getDeclinedRatio());
+        assertEquals(510000, rules.get(1).getBinFrom());
+        assertEquals(559999, rules.get(1).getBinTo());
+        assertEquals(0.25, rules.get(1).getDeclinedRatio());
+        assertEquals(List.of(), CardCatalog.BinRule.parse(""));
+        assertEquals(List.of(), CardCatalog.BinRule.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> CardCatalog.BinRule.parse("400000-499999"));
+        assertThrows(IllegalArgumentException.class, () -> CardCatalog.BinRule.parse("400000:0.1"));
+        assertThrows(IllegalArgumentException.class, () -> CardCatalog.BinRule.parse("abc-499999:0.1"));
+    }
+}
@@ -0,0 +1,46 @@
+package ru.netology.gate;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+// большой каталог карт для симулятора шлюза в формате data.json, записывается потоково:
+// gradlew generateGateCatalog -Dcatalog.cards=1000000 -Dcatalog.bin=444444 -Dcatalog.declinedRatio=0.1
+public class CatalogGenerator {
+    private CatalogGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        var path = Path.of(System.getProperty("catalog.path", "build/gate/catalog.json"));
+        int cards = Integer.getInteger("catalog.cards", 1_000_000);
+        long bin = Long.getLong("catalog.bin", 444444);
+        double declinedRatio = Double.parseDouble(System.getProperty("catalog.declinedRatio", "0.1"));
+        var random = new SplittableRandom(Long.getLong("data.seed", 0));
+
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        try (var writer = new JsonWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            // последовательные номера внутри BIN: без повторов и с воспроизводимыми статусами
+            for (long i = 0; i < cards; i++) {
+                writer.beginObject();
+                writer.name("number").value(format(bin * 10_000_000_000L + i));
+                writer.name("status").value(random.nextDouble() < declinedRatio ? "DECLINED" : "APPROVED");
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+        System.out.println("Каталог карт: " + path.toAbsolutePath() + ", карт: " + cards);
+    }
+
+    // 16 цифр группами по 4 через пробел, как в data.json
+    static String format(long number) {
+        var digits = String.format("%016d", number);
+        return digits.substring(0, 4) + " " + digits.substring(4, 8) + " " + digits.substring(8, 12) + " " + digits.substring(12);
+    }
+}
@@ -0,0 +1,56 @@
+package ru.netology.gate;
+
+import lombok.Value;
+import lombok.With;
+
+// поведение эндпоинта шлюза: задержка ответа и доли сбоев (доли независимы и в сумме не больше 1):
+// errorRate - ответ 500, timeoutRate - ответа нет timeoutHangMillis, затем соединение закрывается,
+// dropRate - соединение закрывается сразу, без ответа
+@Value
+@With
+public class GateProfile {
+    private LatencyDistribution latency;
+    private double errorRate;
+    private double timeoutRate;
+    private long timeoutHangMillis;
+    private double dropRate;
+
+    public GateProfile(LatencyDistribution latency, double errorRate, double timeoutRate, long timeoutHangMillis, double dropRate) {
+        if (errorRate < 0 || timeoutRate < 0 || dropRate < 0 || errorRate + timeoutRate + dropRate > 1) {
+            throw new IllegalArgumentException("Доли сбоев должны быть неотрицательными и в сумме не больше 1");
+        }
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.timeoutRate = timeoutRate;
+        this.timeoutHangMillis = timeoutHangMillis;
+        this.dropRate = dropRate;
+    }
+
+    // исправный шлюз, отвечающий сразу
+    public static GateProfile healthy() {
+        return new GateProfile(LatencyDistribution.none(), 0, 0, 60_000, 0);
+    }
+
+    // профиль по умолчанию для отдельного запуска и нагрузочных прогонов:
+    // -Dgate.latency=uniform:50:300 -Dgate.errorRate=0.01 -Dgate.timeoutRate=0.01 -Dgate.timeoutHangMs=60000 -Dgate.dropRate=0.01
+    public static GateProfile fromSystemProperties() {
+        return new GateProfile(
+                LatencyDistribution.parse(System.getProperty("gate.latency", "none")),
+                Double.parseDouble(System.getProperty("gate.errorRate", "0")),
+                Double.parseDouble(System.getProperty("gate.timeoutRate", "0")),
+                Long.getLong("gate.timeoutHangMs", 60_000),
+                Double.parseDouble(System.getProperty("gate.dropRate", "0")));
+    }
+
+    public static GateProfile slow(LatencyDistribution latency) {
+        return healthy().withLatency(latency);
+    }
+
+    public static GateProfile flaky(double errorRate) {
+        return healthy().withErrorRate(errorRate);
+    }
+
+    public static GateProfile hanging(double timeoutRate, long timeoutHangMillis) {
+        return healthy().withTimeoutRate(timeoutRate).withTimeoutHangMillis(timeoutHangMillis);
+    }
+}
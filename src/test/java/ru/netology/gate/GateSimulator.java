@@ -0,0 +1,309 @@
+package ru.netology.gate;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Value;
+import ru.netology.helpers.WorkerEnvironment;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// симулятор банковского шлюза на Java с тем же контрактом, что и gate-simulator/app.js:
+// POST /payment и /credit с номером карты в теле, ответ {id, status}, для неизвестной карты - 400;
+// карты ищутся по индексу (CardCatalog), а не перебором списка, и для запуска не нужен Node;
+// задержки и сбои каждого эндпоинта задаются профилем (GateProfile), который тесты меняют на ходу
+public class GateSimulator implements AutoCloseable {
+    private static volatile GateSimulator embedded;
+
+    private static final Gson gson = new Gson();
+
+    public enum Endpoint {
+        PAYMENT("/payment"),
+        CREDIT("/credit");
+
+        private final String path;
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        static Endpoint fromPath(String path) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.path.equals(path)) {
+                    return endpoint;
+                }
+            }
+            return null;
+        }
+    }
+
+    // ресурс JUnit для @ResourceLock: профиль общий для всей JVM, поэтому тест, меняющий его, берёт ресурс на запись,
+    // а остальные тесты, идущие через шлюз, - на чтение, и при параллельном запуске не попадают под чужой профиль
+    public static final String lockResource = "gate";
+
+    private final CardCatalog catalog;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // задержанные ответы и "зависшие" запросы ждут в планировщике, а не занимают потоки обработчиков
+    private final ScheduledExecutorService scheduler;
+    private final Map<Endpoint, GateProfile> profiles = new ConcurrentHashMap<>();
+    private final ThreadLocal<Changes> changes = new ThreadLocal<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong drops = new AtomicLong();
+
+    private GateSimulator(CardCatalog catalog, int port, int threads) throws IOException {
+        this.catalog = catalog;
+        var threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "gate-simulator-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "gate-simulator-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reset();
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        for (Endpoint endpoint : Endpoint.values()) {
+            server.createContext(endpoint.getPath(), this::handle);
+        }
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static GateSimulator start(int port, Path data) throws IOException {
+        return new GateSimulator(loadCatalog(data), port, Integer.getInteger("gate.threads",
+                Math.max(4, Runtime.getRuntime().availableProcessors() * 2)));
+    }
+
+    // gradlew gateSimulator (или java ... GateSimulator): -Dgate.port=9999 -Dgate.data=gate-simulator/data.json
+    //   -Dgate.rules=400000-499999:0.1 (статусы карт, которых нет в каталоге, по BIN-диапазонам)
+    public static void main(String[] args) throws IOException {
+        var gate = start(getConfiguredPort(), getDataPath());
+        System.out.println("Симулятор банковского шлюза запущен на порту " + gate.getPort() + ", " + gate.catalog);
+        Runtime.getRuntime().addShutdownHook(new Thread(gate::close, "gate-simulator-shutdown"));
+    }
+
+    public static boolean isEmbedded() {
+        return Boolean.getBoolean("gate.embedded");
+    }
+
+    // один симулятор на всю тестовую JVM, останавливается при её завершении
+    public static GateSimulator getEmbedded() throws IOException {
+        if (embedded == null) {
+            synchronized (GateSimulator.class) {
+                if (embedded == null) {
+                    var gate = start(getConfiguredPort(), getDataPath());
+                    Runtime.getRuntime().addShutdownHook(new Thread(gate::close, "gate-simulator-shutdown"));
+                    embedded = gate;
+                }
+            }
+        }
+        return embedded;
+    }
+
+    // у каждого тестового процесса свой симулятор при -Dgate.port.base (профили сбоев одного форка не влияют на другие)
+    private static int getConfiguredPort() {
+        if (System.getProperty("gate.port.base") != null) {
+            return WorkerEnvironment.getGatePort();
+        }
+        var envPort = System.getenv("PORT");
+        return Integer.getInteger("gate.port", envPort == null ? 9999 : Integer.parseInt(envPort));
+    }
+
+    private static Path getDataPath() {
+        return Path.of(System.getProperty("gate.data", "gate-simulator/data.json"));
+    }
+
+    private static CardCatalog loadCatalog(Path data) throws IOException {
+        return CardCatalog.load(data, CardCatalog.BinRule.parse(System.getProperty("gate.rules")));
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getStatus(String number) {
+        return catalog.getStatus(number);
+    }
+
+    public void setProfile(Endpoint endpoint, GateProfile profile) {
+        var previous = profiles.put(endpoint, profile);
+        var journal = changes.get();
+        if (journal != null) {
+            journal.record(endpoint, previous, profile);
+        }
+    }
+
+    public void setProfile(GateProfile profile) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            setProfile(endpoint, profile);
+        }
+    }
+
+    // начинает журнал изменений профилей, сделанных текущим потоком (тестом); GateSimulatorExtension откатывает его после теста
+    public Changes trackChanges() {
+        var journal = new Changes();
+        changes.set(journal);
+        return journal;
+    }
+
+    public GateProfile getProfile(Endpoint endpoint) {
+        return profiles.get(endpoint);
+    }
+
+    // возвращает поведение по умолчанию (gate.latency, gate.errorRate, ...; без них - исправный шлюз)
+    public void reset() {
+        setProfile(GateProfile.fromSystemProperties());
+    }
+
+    public Stats getStats() {
+        return new Stats(requests.get(), errors.get(), timeouts.get(), drops.get());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        var endpoint = Endpoint.fromPath(exchange.getRequestURI().getPath());
+        if (!"POST".equals(exchange.getRequestMethod()) || endpoint == null) {
+            respond(exchange, 404, null);
+            return;
+        }
+        requests.incrementAndGet();
+        var body = exchange.getRequestBody().readAllBytes();
+        var profile = profiles.get(endpoint);
+        var random = ThreadLocalRandom.current();
+
+        // сбой выбирается до задержки: "зависший" запрос и обрыв соединения не ждут ещё и обычную задержку
+        double roll = random.nextDouble();
+        if (roll < profile.getDropRate()) {
+            drops.incrementAndGet();
+            // закрытие обмена до отправки заголовков закрывает соединение
+            exchange.close();
+            return;
+        }
+        if (roll < profile.getDropRate() + profile.getTimeoutRate()) {
+            timeouts.incrementAndGet();
+            scheduler.schedule(exchange::close, profile.getTimeoutHangMillis(), TimeUnit.MILLISECONDS);
+            return;
+        }
+        boolean error = roll < profile.getDropRate() + profile.getTimeoutRate() + profile.getErrorRate();
+        long delayMillis = profile.getLatency().sampleMillis(random);
+        if (delayMillis <= 0) {
+            complete(exchange, body, error);
+        } else {
+            // планировщик только отсчитывает задержку, а блокирующую запись ответа выполняют потоки обработчиков:
+            // иначе при длинном хвосте задержек все ответы шли бы через один поток планировщика
+            scheduler.schedule(() -> executor.execute(() -> complete(exchange, body, error)), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void complete(HttpExchange exchange, byte[] requestBody, boolean error) {
+        try {
+            if (error) {
+                errors.incrementAndGet();
+                respond(exchange, 500, null);
+                return;
+            }
+            var status = catalog.getStatus(readNumber(requestBody));
+            if (status == null) {
+                respond(exchange, 400, null);
+                return;
+            }
+            var response = new JsonObject();
+            response.addProperty("id", UUID.randomUUID().toString());
+            response.addProperty("status", status);
+            respond(exchange, 200, response.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // клиент (SUT) уже закрыл соединение, не дождавшись ответа
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int statusCode, byte[] body) throws IOException {
+        try (exchange) {
+            if (body == null) {
+                exchange.sendResponseHeaders(statusCode, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(statusCode, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    // номер карты из тела запроса; null, если тело не JSON-объект или номера в нём нет
+    private static String readNumber(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            var json = gson.fromJson(new String(body, StandardCharsets.UTF_8), JsonObject.class);
+            var number = json == null ? null : json.get("number");
+            return number == null || !number.isJsonPrimitive() ? null : number.getAsString();
+        } catch (JsonParseException | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    // профили, изменённые одним тестом: откат возвращает только их и только если их с тех пор не поменял кто-то другой
+    public class Changes {
+        private final Map<Endpoint, GateProfile> original = new EnumMap<>(Endpoint.class);
+        private final Map<Endpoint, GateProfile> applied = new EnumMap<>(Endpoint.class);
+
+        private Changes() {
+        }
+
+        private void record(Endpoint endpoint, GateProfile previous, GateProfile profile) {
+            original.putIfAbsent(endpoint, previous);
+            applied.put(endpoint, profile);
+        }
+
+        public void revert() {
+            if (changes.get() == this) {
+                changes.remove();
+            }
+            original.forEach((endpoint, previous) -> profiles.replace(endpoint, applied.get(endpoint), previous));
+        }
+    }
+
+    // счётчики запросов и внесённых сбоев с момента запуска
+    @Value
+    public static class Stats {
+        private long requests;
+        private long errors;
+        private long timeouts;
+        private long drops;
+    }
+
+}
@@ -0,0 +1,35 @@
+package ru.netology.gate;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+// поднимает симулятор шлюза внутри тестовой JVM до первого теста (включается -Dgate.embedded=true)
+// и после каждого теста откатывает только те профили, которые менял сам тест: профили других параллельных тестов не трогаются
+public class GateSimulatorExtension implements BeforeAllCallback, BeforeEachCallback, AfterEachCallback {
+    private static final ExtensionContext.Namespace namespace = ExtensionContext.Namespace.create(GateSimulatorExtension.class);
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws Exception {
+        if (GateSimulator.isEmbedded()) {
+            GateSimulator.getEmbedded();
+        }
+    }
+
+    // beforeEach, тест и afterEach выполняются в одном потоке, поэтому журнал изменений привязан к потоку теста
+    @Override
+    public void beforeEach(ExtensionContext context) throws Exception {
+        if (GateSimulator.isEmbedded()) {
+            context.getStore(namespace).put("changes", GateSimulator.getEmbedded().trackChanges());
+        }
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        var changes = context.getStore(namespace).remove("changes", GateSimulator.Changes.class);
+        if (changes != null) {
+            changes.revert();
+        }
+    }
+}
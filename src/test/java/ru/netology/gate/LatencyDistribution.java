@@ -0,0 +1,58 @@
+package ru.netology.gate;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+// распределение задержки ответа шлюза, в миллисекундах
+public interface LatencyDistribution {
+    long sampleMillis(ThreadLocalRandom random);
+
+    // none | fixed:<мс> | uniform:<мин>:<макс> | longtail:<медиана>:<p99>, например -Dgate.latency=longtail:200:5000
+    static LatencyDistribution parse(String spec) {
+        var parts = spec.trim().toLowerCase(Locale.ROOT).split(":");
+        try {
+            switch (parts[0]) {
+                case "none":
+                    return none();
+                case "fixed":
+                    return fixed(Long.parseLong(parts[1]));
+                case "uniform":
+                    return uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                case "longtail":
+                    return longTail(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                default:
+                    break;
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректное распределение задержки: " + spec, e);
+        }
+        throw new IllegalArgumentException("Неизвестное распределение задержки: " + spec);
+    }
+
+    static LatencyDistribution none() {
+        return random -> 0;
+    }
+
+    static LatencyDistribution fixed(long millis) {
+        return random -> millis;
+    }
+
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        if (minMillis < 0 || maxMillis < minMillis) {
+            throw new IllegalArgumentException("Некорректный диапазон задержки: " + minMillis + ".." + maxMillis);
+        }
+        return random -> random.nextLong(minMillis, maxMillis + 1);
+    }
+
+    // логнормальное распределение с "длинным хвостом": большинство ответов около медианы,
+    // но 1% ответов медленнее p99Millis, как у перегруженного банка
+    static LatencyDistribution longTail(long medianMillis, long p99Millis) {
+        if (medianMillis <= 0 || p99Millis < medianMillis) {
+            throw new IllegalArgumentException("Медиана должна быть положительной и не больше p99: " + medianMillis + ", " + p99Millis);
+        }
+        // 2.326 - квантиль 0.99 стандартного нормального распределения
+        double sigma = Math.log((double) p99Millis / medianMillis) / 2.326;
+        double mu = Math.log(medianMillis);
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+}
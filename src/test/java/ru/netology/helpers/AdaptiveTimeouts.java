@@ -0,0 +1,119 @@
+package ru.netology.helpers;
+
+import com.google.gson.reflect.TypeToken;
+import ru.netology.metrics.RunReports;
+
+import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// адаптивные таймауты ожиданий (-Dwait.adaptive=true): время проверок (у не дождавшихся - их таймаут) сохраняется между прогонами
+// в .test-history/wait-latency.json, и ожидание длится percentile истории * margin, но не меньше floorMs
+// и не больше таймаута, переданного в проверку; пока истории меньше minSamples, ждём переданный таймаут целиком
+public class AdaptiveTimeouts {
+    private static final boolean enabled = Boolean.getBoolean("wait.adaptive");
+    private static final Path historyFile = Path.of(System.getProperty("wait.historyDir", ".test-history")).resolve("wait-latency.json");
+    private static final double percentile = Double.parseDouble(System.getProperty("wait.percentile", "0.99"));
+    private static final double margin = Double.parseDouble(System.getProperty("wait.margin", "1.5"));
+    private static final long floorMs = Long.getLong("wait.floorMs", 2000);
+    private static final int minSamples = Integer.getInteger("wait.minSamples", 20);
+    // в истории остаются последние замеры, чтобы таймауты следовали за изменениями окружения
+    private static final int maxSamples = Integer.getInteger("wait.maxSamples", 500);
+
+    private static final Type historyType = new TypeToken<Map<String, List<Long>>>() {
+    }.getType();
+
+    // таймауты считаются по истории на момент запуска, замеры этого прогона добавляются в файл в конце
+    private static final Map<String, long[]> sortedHistory = new ConcurrentHashMap<>();
+    private static final Map<String, List<Long>> observed = new ConcurrentHashMap<>();
+
+    static {
+        if (enabled) {
+            HistoryFile.<Map<String, List<Long>>>read(historyFile, historyType, LinkedHashMap::new).forEach((check, samples) ->
+                    sortedHistory.put(check, samples.stream().mapToLong(Long::longValue).sorted().toArray()));
+            RunReports.onRunFinished(AdaptiveTimeouts::saveHistory);
+        }
+    }
+
+    private AdaptiveTimeouts() {
+    }
+
+    public static Duration timeout(String check, Duration ceiling) {
+        if (!enabled) {
+            return ceiling;
+        }
+        var samples = sortedHistory.get(check);
+        if (samples == null || samples.length < minSamples) {
+            return ceiling;
+        }
+        int rank = (int) Math.ceil(percentile * samples.length) - 1;
+        long timeoutMs = Math.max(floorMs, Math.round(samples[Math.max(0, rank)] * margin));
+        return timeoutMs < ceiling.toMillis() ? Duration.ofMillis(timeoutMs) : ceiling;
+    }
+
+    // начало ожидания с таймаутом по истории; ожидание закрывается в try-with-resources
+    public static Wait start(String check, Duration ceiling) {
+        return new Wait(check, timeout(check, ceiling));
+    }
+
+    private static void record(String check, long nanos) {
+        if (enabled) {
+            var samples = observed.computeIfAbsent(check, ignored -> new ArrayList<>());
+            synchronized (samples) {
+                samples.add(nanos / 1_000_000);
+            }
+        }
+    }
+
+    // успешное ожидание (passed) записывает своё время; ожидание, не дождавшееся условия, при close() записывается
+    // цензурированным замером, равным таймауту: задержка была не меньше него. Без таких замеров в истории оставались бы
+    // только задержки короче таймаута, и процентиль мог бы только снижаться, даже когда система замедлилась
+    public static class Wait implements AutoCloseable {
+        private final String check;
+        private final Duration timeout;
+        private final long start = System.nanoTime();
+        private boolean passed;
+
+        private Wait(String check, Duration timeout) {
+            this.check = check;
+            this.timeout = timeout;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void passed() {
+            passed = true;
+            record(check, System.nanoTime() - start);
+        }
+
+        @Override
+        public void close() {
+            if (!passed) {
+                record(check, timeout.toNanos());
+            }
+        }
+    }
+
+    private static void saveHistory() {
+        if (observed.isEmpty()) {
+            return;
+        }
+        HistoryFile.<Map<String, List<Long>>>update(historyFile, historyType, LinkedHashMap::new, history -> {
+            observed.forEach((check, samples) -> {
+                var merged = new ArrayList<>(history.getOrDefault(check, List.of()));
+                synchronized (samples) {
+                    merged.addAll(samples);
+                }
+                history.put(check, merged.subList(Math.max(0, merged.size() - maxSamples), merged.size()));
+            });
+            return history;
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package ru.netology.helpers;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import lombok.Value;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+
+// отправка данных карты напрямую в API SUT (те же запросы, что отправляет форма), без браузера
+public class ApiHelper {
+    private ApiHelper() {
+    }
+
+    private static final Gson gson = new Gson();
+    private static final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private static final Duration requestTimeout = Duration.ofSeconds(Long.getLong("api.timeoutSec", 30));
+
+    public enum Operation {
+        PAYMENT("/api/v1/pay"),
+        CREDIT("/api/v1/credit");
+
+        private final String path;
+
+        Operation(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
+    @Value
+    public static class Response {
+        private int statusCode;
+        private String status;
+        private long latencyNanos;
+    }
+
+    public static String toJson(DataHelper.CardData data) {
+        var body = new LinkedHashMap<String, String>();
+        body.put("number", data.getCardNumber());
+        body.put("month", data.getMonth());
+        body.put("year", data.getYear());
+        body.put("holder", data.getCardOwner());
+        body.put("cvc", data.getCvc());
+        return gson.toJson(body);
+    }
+
+    // неблокирующая отправка: результат приходит в CompletableFuture, поток не занят ожиданием ответа
+    public static CompletableFuture<Response> sendAsync(String host, Operation operation, DataHelper.CardData data) {
+        return sendAsync(host, operation, HttpRequest.BodyPublishers.ofString(toJson(data)));
+    }
+
+    // готовое тело запроса в UTF-8 (например, собранное из корпуса нагрузки без промежуточных строк)
+    public static CompletableFuture<Response> sendAsync(String host, Operation operation, byte[] jsonBody) {
+        return sendAsync(host, operation, HttpRequest.BodyPublishers.ofByteArray(jsonBody));
+    }
+
+    private static CompletableFuture<Response> sendAsync(String host, Operation operation, HttpRequest.BodyPublisher body) {
+        var request = HttpRequest.newBuilder(URI.create(host + operation.getPath()))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(body)
+                .build();
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> new Response(response.statusCode(), parseStatus(response.body()), System.nanoTime() - start));
+    }
+
+    public static Response send(String host, Operation operation, DataHelper.CardData data) {
+        return sendAsync(host, operation, data).join();
+    }
+
+    private static String parseStatus(String body) {
+        try {
+            var json = gson.fromJson(body, JsonObject.class);
+            return json != null && json.has("status") && !json.get("status").isJsonNull() ? json.get("status").getAsString() : null;
+        } catch (JsonParseException | IllegalStateException e) {
+            return null;
+        }
+    }
+}
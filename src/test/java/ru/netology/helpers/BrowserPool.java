@@ -0,0 +1,231 @@
+package ru.netology.helpers;
+
+import com.codeborne.selenide.Configuration;
+import io.github.bonigarcia.wdm.WebDriverManager;
+import lombok.Value;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import ru.netology.metrics.ReportFiles;
+import ru.netology.metrics.RunReports;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// пул заранее запущенных браузеров: запуск браузера - самая дорогая часть теста,
+// поэтому браузеры переиспользуются всеми тестовыми классами, а между тестами только очищаются
+public class BrowserPool {
+    private static volatile BrowserPool instance;
+
+    private final int maxSize;
+    private final LinkedBlockingDeque<WebDriver> idle = new LinkedBlockingDeque<>();
+    private final Queue<WebDriver> all = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger launched = new AtomicInteger();
+    // монитор ожидания свободного браузера: оповещается при возврате браузера в пул и при освобождении места
+    private final Object available = new Object();
+    private final Duration borrowTimeout = Duration.ofSeconds(Long.getLong("browser.pool.borrowTimeoutSec", 120));
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final CopyOnWriteArrayList<Long> startupMillis = new CopyOnWriteArrayList<>();
+
+    private BrowserPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("browser.pool");
+    }
+
+    // размер пула по умолчанию совпадает с числом потоков JUnit в этом процессе (1 без параллельного запуска):
+    // больше браузеров одновременно тестам не нужно, а лишние запуски только отнимают память и время
+    public static BrowserPool getInstance() {
+        if (instance == null) {
+            synchronized (BrowserPool.class) {
+                if (instance == null) {
+                    int size = Integer.getInteger("browser.pool.size", WorkerEnvironment.getParallelism());
+                    var pool = new BrowserPool(size);
+                    pool.warmUp();
+                    RunReports.onRunFinished(pool::writeReport);
+                    Runtime.getRuntime().addShutdownHook(new Thread(pool::shutdown, "browser-pool-shutdown"));
+                    instance = pool;
+                }
+            }
+        }
+        return instance;
+    }
+
+    // браузеры запускаются параллельно в фоне, первые тесты получают уже готовые экземпляры
+    private void warmUp() {
+        ExecutorService launcher = Executors.newFixedThreadPool(maxSize, runnable -> {
+            var thread = new Thread(runnable, "browser-pool-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < maxSize; i++) {
+            if (launched.incrementAndGet() > maxSize) {
+                launched.decrementAndGet();
+                break;
+            }
+            launcher.execute(() -> {
+                try {
+                    offerIdle(launch());
+                } catch (RuntimeException e) {
+                    freeSlot();
+                    System.err.println("Не удалось запустить браузер для пула: " + e.getMessage());
+                }
+            });
+        }
+        launcher.shutdown();
+    }
+
+    // браузер из пула; если все заняты, ждёт возврата браузера или освобождения места (упавший браузер не возвращается,
+    // и вместо него запускается новый), но не дольше browser.pool.borrowTimeoutSec
+    public WebDriver borrow() throws InterruptedException {
+        long deadline = System.nanoTime() + borrowTimeout.toNanos();
+        var driver = idle.poll();
+        if (driver != null) {
+            hits.incrementAndGet();
+            return driver;
+        }
+        misses.incrementAndGet();
+        while (true) {
+            if (tryReserveSlot()) {
+                try {
+                    return launch();
+                } catch (RuntimeException e) {
+                    freeSlot();
+                    throw e;
+                }
+            }
+            synchronized (available) {
+                driver = idle.poll();
+                if (driver != null) {
+                    return driver;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("За " + borrowTimeout.toSeconds() + " с в пуле не освободился ни один браузер: " + getStats());
+                }
+                if (launched.get() >= maxSize) {
+                    TimeUnit.NANOSECONDS.timedWait(available, remaining);
+                }
+            }
+        }
+    }
+
+    private boolean tryReserveSlot() {
+        if (launched.incrementAndGet() <= maxSize) {
+            return true;
+        }
+        launched.decrementAndGet();
+        return false;
+    }
+
+    // место упавшего или незапустившегося браузера: ожидающий тест запустит вместо него новый
+    private void freeSlot() {
+        launched.decrementAndGet();
+        signalAvailable();
+    }
+
+    private void offerIdle(WebDriver driver) {
+        idle.offerFirst(driver);
+        signalAvailable();
+    }
+
+    private void signalAvailable() {
+        synchronized (available) {
+            available.notifyAll();
+        }
+    }
+
+    // вместо перезапуска браузер очищается: cookies, localStorage и sessionStorage
+    public void release(WebDriver driver) {
+        try {
+            ((JavascriptExecutor) driver).executeScript(
+                    "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            offerIdle(driver);
+        } catch (RuntimeException e) {
+            // браузер завис или упал во время теста - заменяем его новым при следующем запросе
+            discarded.incrementAndGet();
+            all.remove(driver);
+            quitQuietly(driver);
+            freeSlot();
+        }
+    }
+
+    private WebDriver launch() {
+        long start = System.nanoTime();
+        WebDriver driver;
+        if ("firefox".equalsIgnoreCase(Configuration.browser)) {
+            WebDriverManager.firefoxdriver().setup();
+            var options = new FirefoxOptions();
+            options.setHeadless(Configuration.headless);
+            driver = new FirefoxDriver(options);
+        } else {
+            WebDriverManager.chromedriver().setup();
+            var options = new ChromeOptions();
+            options.setHeadless(Configuration.headless);
+            options.addArguments("--window-size=" + Configuration.browserSize.replace('x', ','));
+            driver = new ChromeDriver(options);
+        }
+        startupMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        all.add(driver);
+        return driver;
+    }
+
+    // метрики пула в browser-pool*.json рядом с результатами Allure
+    private void writeReport() {
+        ReportFiles.writeJson("browser-pool", getStats());
+    }
+
+    private void shutdown() {
+        WebDriver driver;
+        while ((driver = all.poll()) != null) {
+            quitQuietly(driver);
+        }
+    }
+
+    private void quitQuietly(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (RuntimeException ignored) {
+            // процесс браузера уже завершён
+        }
+    }
+
+    public PoolStats getStats() {
+        var startups = startupMillis.stream().mapToLong(Long::longValue).summaryStatistics();
+        return new PoolStats(maxSize, launched.get(), idle.size(), hits.get(), misses.get(), discarded.get(),
+                startups.getCount(), startups.getCount() == 0 ? 0 : (long) startups.getAverage(),
+                startups.getCount() == 0 ? 0 : startups.getMax());
+    }
+
+    // метрики пула: попадания/промахи и время запуска браузеров
+    @Value
+    public static class PoolStats {
+        private int maxSize;
+        private int launched;
+        private int idle;
+        private long hits;
+        private long misses;
+        private long discarded;
+        private long startups;
+        private long avgStartupMillis;
+        private long maxStartupMillis;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.netology.helpers;
+
+import com.codeborne.selenide.WebDriverRunner;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.openqa.selenium.WebDriver;
+import ru.netology.metrics.TimeBreakdown;
+
+// выдаёт тесту браузер из пула и привязывает его к Selenide в потоке теста (включается -Dbrowser.pool=true)
+public class BrowserPoolExtension implements BeforeEachCallback, AfterEachCallback {
+    private static final ExtensionContext.Namespace namespace = ExtensionContext.Namespace.create(BrowserPoolExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) throws InterruptedException {
+        if (!BrowserPool.isEnabled() || !ExecutionMode.needsBrowser(context.getTags())) {
+            return;
+        }
+        long start = System.nanoTime();
+        var driver = BrowserPool.getInstance().borrow();
+        TimeBreakdown.record(TimeBreakdown.Bucket.BROWSER_STARTUP, System.nanoTime() - start);
+        WebDriverRunner.setWebDriver(driver);
+        context.getStore(namespace).put(WebDriver.class, driver);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        var driver = context.getStore(namespace).remove(WebDriver.class, WebDriver.class);
+        if (driver != null) {
+            BrowserPool.getInstance().release(driver);
+        }
+    }
+}
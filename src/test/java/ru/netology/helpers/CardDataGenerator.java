@@ -0,0 +1,153 @@
+package ru.netology.helpers;
+
+import com.github.javafaker.Faker;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+// быстрая генерация данных карт для DataHelper и нагрузочных прогонов:
+// - у каждого потока свой Random (без конкуренции за общий) и свои экземпляры Faker по локалям, создаются один раз;
+// - имена владельцев берутся из заранее набранных Faker-ом списков имён и фамилий (по локали);
+// - месяц, год и цифровые коды формируются без String.format и Faker;
+// все случайные значения выводятся из общего seed (-Ddata.seed=...), поэтому прогон можно воспроизвести
+public class CardDataGenerator {
+    private CardDataGenerator() {
+    }
+
+    private static final long globalSeed = Long.getLong("data.seed", new SplittableRandom().nextLong());
+
+    // размер списков имён и фамилий на локаль: 1024 x 1024 сочетаний
+    private static final int namesPoolSize = 1024;
+
+    private static final String[] twoDigits = new String[100];
+    private static final SplittableRandom seeds = new SplittableRandom(globalSeed);
+    private static final ThreadLocal<ThreadState> state = ThreadLocal.withInitial(ThreadState::new);
+    private static final Map<String, NamesPool> namesPools = new ConcurrentHashMap<>();
+
+    static {
+        for (int i = 0; i < twoDigits.length; i++) {
+            twoDigits[i] = (i < 10 ? "0" : "") + i;
+        }
+    }
+
+    public static long getGlobalSeed() {
+        return globalSeed;
+    }
+
+    // seed подпотока для ключа (например, id теста): зависит только от общего seed и ключа,
+    // поэтому не зависит от порядка запуска тестов и от того, в каком потоке тест выполнился
+    public static long seedFor(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(globalSeed ^ hash);
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // переключает генератор текущего потока на подпоток с заданным seed; Faker-ы потока используют тот же Random
+    public static void reseed(long seed) {
+        state.get().random.setSeed(seed);
+    }
+
+    private static class ThreadState {
+        private final Random random;
+        private final Map<String, Faker> fakers = new HashMap<>();
+
+        ThreadState() {
+            long seed;
+            synchronized (seeds) {
+                seed = seeds.split().nextLong();
+            }
+            random = new Random(seed);
+        }
+
+        Faker faker(String locale) {
+            return fakers.computeIfAbsent(locale, key -> new Faker(new Locale(key), random));
+        }
+    }
+
+    private static class NamesPool {
+        private final String[] firstNames = new String[namesPoolSize];
+        private final String[] lastNames = new String[namesPoolSize];
+
+        NamesPool(String locale) {
+            // собственный Random от seed локали: списки одинаковы при одинаковом seed, в каком бы потоке их ни собрали
+            var faker = new Faker(new Locale(locale), new Random(seedFor("names:" + locale)));
+            for (int i = 0; i < namesPoolSize; i++) {
+                firstNames[i] = faker.name().firstName().toUpperCase(Locale.ROOT);
+                lastNames[i] = faker.name().lastName().toUpperCase(Locale.ROOT);
+            }
+        }
+    }
+
+    private static NamesPool names(String locale) {
+        return namesPools.computeIfAbsent(locale, NamesPool::new);
+    }
+
+    public static Random random() {
+        return state.get().random;
+    }
+
+    public static int nextInt(int bound) {
+        return random().nextInt(bound);
+    }
+
+    public static Faker faker(String locale) {
+        return state.get().faker(locale);
+    }
+
+    public static String month() {
+        return twoDigits[nextInt(12) + 1];
+    }
+
+    // несуществующий месяц: 13..98
+    public static String wrongMonth() {
+        return twoDigits[nextInt(99 - 13) + 13];
+    }
+
+    public static String shiftedYear(int shift) {
+        return twoDigits[Math.floorMod(LocalDate.now().getYear() + shift, 100)];
+    }
+
+    public static String numericCode(int length) {
+        var random = random();
+        var digits = new char[length];
+        for (int i = 0; i < length; i++) {
+            digits[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(digits);
+    }
+
+    public static String cardOwner(String locale) {
+        var pool = names(locale);
+        return pool.firstNames[nextInt(namesPoolSize)] + " " + pool.lastNames[nextInt(namesPoolSize)];
+    }
+
+    public static String nameOnly(String locale) {
+        return names(locale).firstNames[nextInt(namesPoolSize)];
+    }
+
+    public static String cardOwnerWithFixedLength(String locale, int length) {
+        var lorem = faker(locale).lorem();
+        String first = lorem.characters(length / 2, false, false);
+        String second = lorem.characters(length - first.length() - 1, false, false);
+
+        return first + " " + second;
+    }
+
+    public static String letters(String locale, int length) {
+        return faker(locale).lorem().characters(length, true, false);
+    }
+}
@@ -0,0 +1,236 @@
+package ru.netology.helpers;
+
+import lombok.Value;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// пул соединений с БД: вместо нового подключения (TCP + авторизация) на каждый запрос
+// соединения переиспользуются; работает с любым JDBC url (MySQL и PostgreSQL)
+public class ConnectionPool implements AutoCloseable {
+    // соединение, которое использовалось совсем недавно, повторно не проверяем (лишний round-trip)
+    private static final long aliveBypassNanos = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int validationTimeoutSec = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final Duration borrowTimeout;
+    private final Duration idleTimeout;
+
+    private final Semaphore permits;
+    private final Deque<IdleConnection> idle = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password, int maxSize, Duration borrowTimeout, Duration idleTimeout) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Размер пула должен быть положительным: " + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.borrowTimeout = borrowTimeout;
+        this.idleTimeout = idleTimeout;
+        this.permits = new Semaphore(maxSize, true);
+
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "db-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleTimeout.toMillis() / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // возвращает соединение из пула; close() у полученного соединения возвращает его обратно в пул
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Пул соединений закрыт");
+        }
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Нет свободных соединений в пуле за " + borrowTimeout.toMillis() + " мс: " + getStats());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Ожидание соединения прервано", e);
+        }
+        waitNanos.addAndGet(System.nanoTime() - waitStart);
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null) {
+                physical = DriverManager.getConnection(url, user, password);
+                opened.incrementAndGet();
+                created.incrementAndGet();
+            }
+            borrowed.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Connection takeValidIdle() {
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            if (System.nanoTime() - candidate.getReleasedAt() < aliveBypassNanos || isValid(candidate.getConnection())) {
+                return candidate.getConnection();
+            }
+            validationFailures.incrementAndGet();
+            closeQuietly(candidate.getConnection());
+        }
+        return null;
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // прокси перехватывает close(): физическое соединение не закрывается, а возвращается в пул
+    private Connection wrap(Connection physical) {
+        var released = new boolean[1];
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!released[0]) {
+                                released[0] = true;
+                                release(physical);
+                            }
+                            return null;
+                        case "isClosed":
+                            return released[0] || physical.isClosed();
+                        case "unwrap":
+                        case "isWrapperFor":
+                            break;
+                        default:
+                            if (released[0]) {
+                                throw new SQLException("Соединение уже возвращено в пул");
+                            }
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private void release(Connection physical) {
+        try {
+            boolean reusable = !closed && !physical.isClosed();
+            if (reusable && !physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (reusable) {
+                idle.offerFirst(new IdleConnection(physical, System.nanoTime()));
+            } else {
+                closeQuietly(physical);
+            }
+        } catch (SQLException e) {
+            closeQuietly(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdle() {
+        long deadline = System.nanoTime() - idleTimeout.toNanos();
+        // самые давно вернувшиеся соединения лежат в конце очереди
+        IdleConnection candidate;
+        while ((candidate = idle.peekLast()) != null && candidate.getReleasedAt() - deadline < 0) {
+            if (idle.removeLastOccurrence(candidate)) {
+                evicted.incrementAndGet();
+                closeQuietly(candidate.getConnection());
+            }
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // соединение и так выбрасываем
+        } finally {
+            opened.decrementAndGet();
+        }
+    }
+
+    public PoolStats getStats() {
+        long borrowedTotal = borrowed.get();
+        return new PoolStats(
+                maxSize,
+                opened.get(),
+                idle.size(),
+                maxSize - permits.availablePermits(),
+                created.get(),
+                borrowedTotal,
+                validationFailures.get(),
+                evicted.get(),
+                borrowedTotal == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(waitNanos.get()) / borrowedTotal
+        );
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            closeQuietly(candidate.getConnection());
+        }
+    }
+
+    @Value
+    private static class IdleConnection {
+        private Connection connection;
+        private long releasedAt;
+    }
+
+    // метрики пула
+    @Value
+    public static class PoolStats {
+        private int maxSize;
+        private int opened;
+        private int idle;
+        private int active;
+        private long created;
+        private long borrowed;
+        private long validationFailures;
+        private long evicted;
+        private long avgWaitMicros;
+    }
+}
@@ -1,16 +1,12 @@
 package ru.netology.helpers;
 
-import com.github.javafaker.Faker;
 import lombok.*;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.Locale;
-import java.util.Random;
 
+// генерация выполняется через CardDataGenerator: Faker и Random не создаются на каждый вызов
 public class DataHelper {
-    static Random random = new Random();
-
     private DataHelper() {
     }
 
@@ -34,10 +30,8 @@ public class DataHelper {
     }
 
     public static String getInvalidSymbolsForNumericFields() {
-        Faker fakerRU = new Faker(new Locale("ru"));
-        Faker fakerEN = new Faker(new Locale("en"));
-        return fakerRU.lorem().characters(5,true,false) +
-                fakerEN.lorem().characters(5,true,false) +
+        return CardDataGenerator.letters("ru", 5) +
+                CardDataGenerator.letters("en", 5) +
                 "~`@\"#№$;%^:&?*()_-+=/\\{}[]|<>'";
     }
 
@@ -50,45 +44,37 @@ public class DataHelper {
     }
 
     public static String generateCardOwner(String locale) {
-        Faker faker = new Faker(new Locale(locale));
-        return faker.name().firstName().toUpperCase(Locale.ROOT) + " " + faker.name().lastName().toUpperCase(Locale.ROOT);
+        return CardDataGenerator.cardOwner(locale);
     }
 
     public static String generateNameOnly(String locale) {
-        Faker faker = new Faker(new Locale(locale));
-        return faker.name().firstName().toUpperCase(Locale.ROOT);
+        return CardDataGenerator.nameOnly(locale);
     }
 
     public static String generateCardOwnerWithFixedLength(String locale, int length) {
-        Faker faker = new Faker(new Locale(locale));
-        String first = faker.lorem().characters(length / 2, false, false);
-        String second = faker.lorem().characters(length - first.length() - 1, false, false);
-
-        return first + " " + second;
+        return CardDataGenerator.cardOwnerWithFixedLength(locale, length);
     }
 
     public static String generateMonth() {
-        return String.format("%02d", (random.nextInt(12) + 1));
+        return CardDataGenerator.month();
     }
 
     public static String generateWrongMonth() {
-        return String.format("%02d", (random.nextInt(99 - 13) + 13));
+        return CardDataGenerator.wrongMonth();
     }
 
     public static String generateShiftedYearFromCurrent(int shift) {
-        LocalDate date = LocalDate.now().plusYears(shift);
-        return DateTimeFormatter.ofPattern("yy").format(date);
+        return CardDataGenerator.shiftedYear(shift);
     }
 
     public static String generateNumericCode(int length) {
-        Faker faker = new Faker();
-        return faker.number().digits(length);
+        return CardDataGenerator.numericCode(length);
     }
 
     public static CardData generateValidCardData(int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwner("en"),
                 generateNumericCode(3));
     }
@@ -96,7 +82,7 @@ public class DataHelper {
     public static CardData generateCardDataWithDeclinedCard(int expiryYears) {
         return new CardData(getDeclinedCardNumber(),
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwner("en"),
                 generateNumericCode(3));
     }
@@ -104,7 +90,7 @@ public class DataHelper {
     public static CardData generateCardDataWithCardOwnerFixedLength(int cardOwnerLength, int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwnerWithFixedLength("en", cardOwnerLength),
                 generateNumericCode(3));
     }
@@ -112,7 +98,7 @@ public class DataHelper {
     public static CardData generateCardDataWithInvalidCardOwnerLocale(String locale, int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwner(locale),
                 generateNumericCode(3));
     }
@@ -120,7 +106,7 @@ public class DataHelper {
     public static CardData generateCardDataWithInvalidCardOwnerSymbols(int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 getInvalidSymbolsForCharacterFields(),
                 generateNumericCode(3));
     }
@@ -128,7 +114,7 @@ public class DataHelper {
     public static CardData generateCardDataWithCardOwnerSpaces(int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 "          ",
                 generateNumericCode(3));
     }
@@ -136,7 +122,7 @@ public class DataHelper {
     public static CardData generateCardDataWithIncompleteCardOwner(int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateNameOnly("en"),
                 generateNumericCode(3));
     }
@@ -144,7 +130,7 @@ public class DataHelper {
     public static CardData generateCardDataWithHyphenCardOwner(int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 getCardOwnerWithHyphen(),
                 generateNumericCode(3));
     }
@@ -171,7 +157,7 @@ public class DataHelper {
     public static CardData generateCardDataWithZeroCVC(int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwner("en"),
                 "000");
     }
@@ -179,7 +165,7 @@ public class DataHelper {
     public static CardData generateCardDataWithIncompleteNumber(int expiryYears, int length) {
         return new CardData(generateNumericCode(length),
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwner("en"),
                 generateNumericCode(3));
     }
@@ -187,7 +173,7 @@ public class DataHelper {
     public static CardData generateCardDataWithWrongMonth(int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 generateWrongMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwner("en"),
                 generateNumericCode(3));
     }
@@ -195,7 +181,7 @@ public class DataHelper {
     public static CardData generateCardDataWithMonthInvalidLength(int monthLength, int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 generateNumericCode(monthLength),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwner("en"),
                 generateNumericCode(3));
     }
@@ -211,7 +197,7 @@ public class DataHelper {
     public static CardData generateCardDataWithCVCInvalidLength(int CVCLength, int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwner("en"),
                 generateNumericCode(CVCLength));
     }
@@ -219,7 +205,7 @@ public class DataHelper {
     public static CardData generateCardDataWithZeroCard(int expiryYears) {
         return new CardData("0000 0000 0000 0000",
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwner("en"),
                 generateNumericCode(3));
     }
@@ -235,7 +221,7 @@ public class DataHelper {
     public static CardData generateCardDataWithZeroMonth(int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 "00",
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwner("en"),
                 generateNumericCode(3));
     }
@@ -243,7 +229,7 @@ public class DataHelper {
     public static CardData generateCardDataWithEmptyCard(int expiryYears) {
         return new CardData(null,
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwner("en"),
                 generateNumericCode(3));
     }
@@ -251,7 +237,7 @@ public class DataHelper {
     public static CardData generateCardDataWithEmptyMonth(int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 null,
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwner("en"),
                 generateNumericCode(3));
     }
@@ -267,7 +253,7 @@ public class DataHelper {
     public static CardData generateCardDataWithEmptyCardOwner(int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 null,
                 generateNumericCode(3));
     }
@@ -275,7 +261,7 @@ public class DataHelper {
     public static CardData generateCardDataWithEmptyCVC(int expiryYears) {
         return new CardData(getApprovedCardNumber(),
                 generateMonth(),
-                generateShiftedYearFromCurrent(random.nextInt(expiryYears) + 1),
+                generateShiftedYearFromCurrent(CardDataGenerator.nextInt(expiryYears) + 1),
                 generateCardOwner("en"),
                 null);
     }
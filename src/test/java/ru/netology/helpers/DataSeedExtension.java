@@ -0,0 +1,50 @@
+package ru.netology.helpers;
+
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import ru.netology.metrics.ReportFiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+// каждый тест получает свой подпоток случайных данных, выведенный из общего seed и id теста,
+// так что упавший тест воспроизводится тем же -Ddata.seed независимо от порядка и параллельности запуска;
+// seed прогона попадает в раздел Environment отчёта Allure (при запуске через Gradle файл пишет сама задача test,
+// один раз на прогон; здесь он пишется только если его нет или в нём другой seed, например при запуске из IDE)
+public class DataSeedExtension implements BeforeAllCallback, BeforeEachCallback {
+    private static volatile boolean seedReported;
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        if (!seedReported) {
+            synchronized (DataSeedExtension.class) {
+                if (!seedReported) {
+                    reportSeed();
+                    seedReported = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        CardDataGenerator.reseed(CardDataGenerator.seedFor(context.getUniqueId()));
+    }
+
+    private void reportSeed() {
+        var environment = ReportFiles.resultsDir().resolve("environment.properties");
+        var content = "data.seed=" + CardDataGenerator.getGlobalSeed() + System.lineSeparator();
+        try {
+            if (Files.isRegularFile(environment) && Files.readString(environment, StandardCharsets.UTF_8).trim().equals(content.trim())) {
+                return;
+            }
+            Files.createDirectories(environment.toAbsolutePath().getParent());
+            Files.writeString(environment, content, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ru.netology.helpers;
+
+import lombok.SneakyThrows;
+import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.dbutils.handlers.ScalarHandler;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+// создание отдельной БД для каждого параллельного воркера из эталонной (шаблонной) БД
+public class DatabaseProvisioner {
+    private DatabaseProvisioner() {
+    }
+
+    private static final String[] tableNames = {"order_entity", "payment_entity", "credit_request_entity"};
+    private static final QueryRunner runner = new QueryRunner();
+
+    // ключ pg_advisory_lock: клонирование шаблона выполняется форками по очереди
+    private static final long cloneLockKey = 0x6E65746F6C6F6779L;
+    // SQLSTATE object_in_use: "source database ... is being accessed by other users"
+    private static final String objectInUse = "55006";
+    private static final int cloneAttempts = Integer.getInteger("db.template.attempts", 10);
+
+    // шаблон по умолчанию: в PostgreSQL - отдельная БД <имя>_template, к которой никто не подключается
+    // (рабочую БД держит SUT, а копировать шаблон с подключениями PostgreSQL не даёт); в MySQL - сама рабочая БД
+    public static String defaultTemplate(String baseUrl) {
+        var database = databaseName(baseUrl);
+        return DbDialect.fromUrl(baseUrl) == DbDialect.POSTGRESQL ? database + "_template" : database;
+    }
+
+    // возвращает url БД воркера; если БД уже существует (например, к ней подключен SUT воркера) - она переиспользуется
+    @SneakyThrows
+    public static String provision(String baseUrl, String templateDb, String workerDb, String user, String password) {
+        var dialect = DbDialect.fromUrl(baseUrl);
+        switch (dialect) {
+            case POSTGRESQL:
+                provisionPostgres(baseUrl, templateDb, workerDb, user, password);
+                break;
+            case MYSQL:
+                try (
+                        var conn = DriverManager.getConnection(baseUrl, user, password);
+                ) {
+                    runner.execute(conn, "CREATE DATABASE IF NOT EXISTS " + quote(workerDb, dialect) + ";");
+                    for (String tableName : tableNames) {
+                        runner.execute(conn, "CREATE TABLE IF NOT EXISTS " + quote(workerDb, dialect) + "." + tableName
+                                + " LIKE " + quote(templateDb, dialect) + "." + tableName + ";");
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("Изоляция БД по воркерам не поддерживается для " + baseUrl);
+        }
+        return withDatabase(baseUrl, workerDb);
+    }
+
+    // копия шаблона создаётся на уровне файлов БД, без построчного копирования; подключаемся к служебной БД postgres,
+    // чтобы собственное подключение не мешало копированию, и держим advisory lock, чтобы форки не копировали шаблон одновременно
+    private static void provisionPostgres(String baseUrl, String templateDb, String workerDb, String user, String password)
+            throws SQLException, InterruptedException {
+        if (templateDb.equals(databaseName(baseUrl))) {
+            throw new IllegalStateException("Шаблоном для БД воркеров не может быть рабочая БД " + templateDb
+                    + ": к ней подключен SUT. Создайте отдельный шаблон при остановленном SUT (CREATE DATABASE "
+                    + defaultTemplate(baseUrl) + " TEMPLATE " + templateDb + ") и укажите его в -Ddb.template");
+        }
+        var dialect = DbDialect.POSTGRESQL;
+        var maintenanceUrl = withDatabase(baseUrl, System.getProperty("db.maintenance", "postgres"));
+        try (
+                var conn = DriverManager.getConnection(maintenanceUrl, user, password);
+        ) {
+            runner.query(conn, "SELECT pg_advisory_lock(?);", new ScalarHandler<>(), cloneLockKey);
+            try {
+                Number templateExists = runner.query(conn, "SELECT COUNT(*) FROM pg_database WHERE datname = ?;", new ScalarHandler<>(), templateDb);
+                if (templateExists.longValue() == 0) {
+                    throw new IllegalStateException("Не найдена шаблонная БД " + templateDb + ": создайте её при остановленном SUT (CREATE DATABASE "
+                            + templateDb + " TEMPLATE " + databaseName(baseUrl) + ") или укажите другую в -Ddb.template");
+                }
+                Number exists = runner.query(conn, "SELECT COUNT(*) FROM pg_database WHERE datname = ?;", new ScalarHandler<>(), workerDb);
+                if (exists.longValue() > 0) {
+                    return;
+                }
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        runner.execute(conn, "CREATE DATABASE " + quote(workerDb, dialect) + " TEMPLATE " + quote(templateDb, dialect) + ";");
+                        return;
+                    } catch (SQLException e) {
+                        // к шаблону кто-то подключён (например, только что отключившийся процесс ещё не завершил сессию)
+                        if (!objectInUse.equals(e.getSQLState()) || attempt >= cloneAttempts) {
+                            throw e;
+                        }
+                        Thread.sleep(500L * attempt);
+                    }
+                }
+            } finally {
+                runner.query(conn, "SELECT pg_advisory_unlock(?);", new ScalarHandler<>(), cloneLockKey);
+            }
+        }
+    }
+
+    // триггеры pg_notify с именем таблицы на каждую вставку в таблицы SUT (ожидание строк через LISTEN/NOTIFY, -Ddb.notify=true);
+    // ставятся в БД, с которой работает прогон, и снимаются в его конце
+    public static final String insertChannel = "netology_inserts";
+
+    public static void installInsertNotifications(Connection conn) throws SQLException {
+        inLockedTransaction(conn, () -> {
+            runner.execute(conn, "CREATE OR REPLACE FUNCTION " + insertChannel + "_notify() RETURNS trigger AS $$ " +
+                    "BEGIN PERFORM pg_notify('" + insertChannel + "', TG_TABLE_NAME); RETURN NEW; END; $$ LANGUAGE plpgsql;");
+            for (String tableName : tableNames) {
+                runner.execute(conn, "DROP TRIGGER IF EXISTS " + insertChannel + "_trigger ON " + tableName + ";");
+                runner.execute(conn, "CREATE TRIGGER " + insertChannel + "_trigger AFTER INSERT ON " + tableName +
+                        " FOR EACH ROW EXECUTE PROCEDURE " + insertChannel + "_notify();");
+            }
+        });
+    }
+
+    public static void dropInsertNotifications(Connection conn) throws SQLException {
+        inLockedTransaction(conn, () -> {
+            for (String tableName : tableNames) {
+                runner.execute(conn, "DROP TRIGGER IF EXISTS " + insertChannel + "_trigger ON " + tableName + ";");
+            }
+            runner.execute(conn, "DROP FUNCTION IF EXISTS " + insertChannel + "_notify();");
+        });
+    }
+
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+
+    // одновременный CREATE OR REPLACE FUNCTION из нескольких процессов падает с "tuple concurrently updated",
+    // поэтому DDL выполняется в транзакции под advisory lock
+    private static void inLockedTransaction(Connection conn, SqlAction action) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            runner.query(conn, "SELECT pg_advisory_xact_lock(?);", new ScalarHandler<>(), cloneLockKey);
+            action.run();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    // имя БД в JDBC url: jdbc:postgresql://localhost:5432/app?ssl=false -> app
+    public static String databaseName(String url) {
+        int start = url.indexOf('/', url.indexOf("//") + 2) + 1;
+        int end = url.indexOf('?', start);
+        return url.substring(start, end < 0 ? url.length() : end);
+    }
+
+    public static String withDatabase(String url, String database) {
+        int start = url.indexOf('/', url.indexOf("//") + 2) + 1;
+        int end = url.indexOf('?', start);
+        return url.substring(0, start) + database + (end < 0 ? "" : url.substring(end));
+    }
+
+    private static String quote(String identifier, DbDialect dialect) {
+        if (!identifier.matches("[A-Za-z0-9_]+")) {
+            throw new IllegalArgumentException("Недопустимое имя БД: " + identifier);
+        }
+        return dialect == DbDialect.MYSQL ? "`" + identifier + "`" : "\"" + identifier + "\"";
+    }
+}
@@ -0,0 +1,48 @@
+package ru.netology.helpers;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import ru.netology.metrics.RunReports;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// очистка таблиц SUT после тестов, которые пишут в БД
+// режим задаётся параметром -Ddb.reset=class|test|none (по умолчанию - после каждого класса);
+// при параллельном запуске очистка посреди прогона удалила бы строки соседних тестов, поэтому таблицы очищаются один раз в конце
+public class DatabaseResetExtension implements AfterEachCallback, AfterAllCallback {
+    private static final AtomicBoolean cleanupAtRunEnd = new AtomicBoolean();
+
+    public enum ResetMode {
+        CLASS,
+        TEST,
+        NONE
+    }
+
+    static ResetMode getMode() {
+        return ResetMode.valueOf(System.getProperty("db.reset", "class").toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        if (getMode() == ResetMode.TEST) {
+            clean();
+        }
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        if (getMode() == ResetMode.CLASS) {
+            clean();
+        }
+    }
+
+    private static void clean() {
+        if (!WorkerEnvironment.isParallel()) {
+            SQLHelper.cleanDatabase();
+        } else if (cleanupAtRunEnd.compareAndSet(false, true)) {
+            RunReports.onRunFinished(SQLHelper::cleanDatabase);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.netology.helpers;
+
+// СУБД, на которую указывает db.url: от неё зависят запросы очистки и служебные команды
+public enum DbDialect {
+    MYSQL,
+    POSTGRESQL,
+    OTHER;
+
+    public static DbDialect fromUrl(String url) {
+        if (url == null) {
+            return OTHER;
+        }
+        if (url.startsWith("jdbc:mysql:")) {
+            return MYSQL;
+        }
+        if (url.startsWith("jdbc:postgresql:")) {
+            return POSTGRESQL;
+        }
+        return OTHER;
+    }
+}
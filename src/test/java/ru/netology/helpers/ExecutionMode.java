@@ -0,0 +1,24 @@
+package ru.netology.helpers;
+
+import java.util.Locale;
+import java.util.Set;
+
+// способ отправки заявок в сценариях с проверкой БД: через форму в браузере (UI) или прямым HTTP-запросом в SUT (API);
+// выбирается на весь прогон параметром -Dexecution.mode=ui|api
+public enum ExecutionMode {
+    UI,
+    API;
+
+    // тег тестов, которым браузер нужен только для отправки заявки
+    public static final String backendTag = "backend";
+
+    private static final ExecutionMode current = valueOf(System.getProperty("execution.mode", "ui").toUpperCase(Locale.ROOT));
+
+    public static ExecutionMode current() {
+        return current;
+    }
+
+    public static boolean needsBrowser(Set<String> tags) {
+        return current == UI || !tags.contains(backendTag);
+    }
+}
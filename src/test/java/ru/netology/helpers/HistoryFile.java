@@ -0,0 +1,64 @@
+package ru.netology.helpers;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+// JSON-файлы истории прогонов (.test-history): читаются при запуске, дополняются в конце прогона;
+// тестовые процессы обновляют файл по очереди под блокировкой, испорченный файл начинается заново
+public class HistoryFile {
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    private HistoryFile() {
+    }
+
+    public static <T> T read(Path file, Type type, Supplier<T> empty) {
+        if (!Files.isRegularFile(file)) {
+            return empty.get();
+        }
+        try {
+            return parse(file, Files.readString(file, StandardCharsets.UTF_8), type, empty);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // merge получает текущее содержимое файла (с учётом записей других процессов) и возвращает новое
+    public static <T> void update(Path file, Type type, Supplier<T> empty, UnaryOperator<T> merge) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 var ignored = channel.lock()) {
+                var current = parse(file, new String(Channels.newInputStream(channel).readAllBytes(), StandardCharsets.UTF_8), type, empty);
+                var json = gson.toJson(merge.apply(current), type).getBytes(StandardCharsets.UTF_8);
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(json), 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить историю в " + file.toAbsolutePath(), e);
+        }
+    }
+
+    private static <T> T parse(Path file, String json, Type type, Supplier<T> empty) {
+        try {
+            T value = gson.fromJson(json, type);
+            return value == null ? empty.get() : value;
+        } catch (JsonParseException e) {
+            System.out.println("История " + file.toAbsolutePath() + " повреждена и будет перезаписана: " + e.getMessage());
+            return empty.get();
+        }
+    }
+}
@@ -3,13 +3,29 @@ package ru.netology.helpers;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
+import lombok.Value;
 import org.apache.commons.dbutils.QueryRunner;
 import org.apache.commons.dbutils.ResultSetHandler;
+import org.apache.commons.dbutils.handlers.ArrayHandler;
 import org.apache.commons.dbutils.handlers.BeanHandler;
+import org.apache.commons.dbutils.handlers.BeanListHandler;
+import org.apache.commons.dbutils.handlers.ColumnListHandler;
 import org.apache.commons.dbutils.handlers.ScalarHandler;
+import org.postgresql.PGConnection;
+import ru.netology.metrics.QueryMetrics;
+import ru.netology.metrics.RunReports;
 
-import java.sql.DriverManager;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 public class SQLHelper {
     private SQLHelper() {
@@ -17,13 +33,84 @@ public class SQLHelper {
 
     private final static String[] tableNames = {"credit_request_entity", "payment_entity", "order_entity"};
 
-    private static String dbUrl = System.getProperty("db.url"); //для запуска из консоли
+    static final String userDB = "app";
+    static final String passwordDB = "pass";
+    // db.url для запуска из консоли; при параллельном запуске у каждого воркера своя копия БД
+    private static String dbUrl = WorkerEnvironment.getDbUrl(userDB, passwordDB);
     //private static final String dbUrl = "jdbc:postgresql://localhost:5432/app";
     //private static final String dbUrl = "jdbc:mysql://localhost:3306/app";
-    private static final String userDB = "app";
-    private static final String passwordDB = "pass";
+    private static final DbDialect dialect = DbDialect.fromUrl(dbUrl);
     static QueryRunner runner = new QueryRunner();
 
+    // пул соединений на весь прогон вместо нового подключения к БД на каждый запрос
+    private static final ConnectionPool pool = createPool();
+
+    private static ConnectionPool createPool() {
+        var pool = new ConnectionPool(dbUrl, userDB, passwordDB,
+                Integer.getInteger("db.pool.size", 4),
+                Duration.ofSeconds(Long.getLong("db.pool.borrowTimeoutSec", 30)),
+                Duration.ofSeconds(Long.getLong("db.pool.idleTimeoutSec", 60)));
+        Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "db-pool-shutdown"));
+        RunReports.onRunFinished(() -> QueryMetrics.writeReport(pool.getStats()));
+        return pool;
+    }
+
+    // все запросы идут через borrow/query/execute: время получения соединения, выполнения и число строк
+    // попадают в QueryMetrics (отчёт sql-timings.json); запрос с исключением записывается в finally с отметкой об ошибке
+    private static Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        var conn = pool.getConnection();
+        QueryMetrics.recordConnect(System.nanoTime() - start);
+        return conn;
+    }
+
+    private static <T> T query(Connection conn, String sql, ResultSetHandler<T> handler, Object... params) throws SQLException {
+        long start = System.nanoTime();
+        T result = null;
+        boolean failed = true;
+        try {
+            result = runner.query(conn, sql, handler, params);
+            failed = false;
+            return result;
+        } finally {
+            QueryMetrics.recordQuery(sql, System.nanoTime() - start, rowsOf(result), failed);
+        }
+    }
+
+    private static <T> T query(String sql, ResultSetHandler<T> handler, Object... params) throws SQLException {
+        try (
+                var conn = borrow();
+        ) {
+            return query(conn, sql, handler, params);
+        }
+    }
+
+    private static void execute(Connection conn, String sql, Object... params) throws SQLException {
+        long start = System.nanoTime();
+        int rows = 0;
+        boolean failed = true;
+        try {
+            rows = runner.execute(conn, sql, params);
+            failed = false;
+        } finally {
+            QueryMetrics.recordQuery(sql, System.nanoTime() - start, Math.max(rows, 0), failed);
+        }
+    }
+
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Object[]) {
+            return ((Object[]) result).length == 0 ? 0 : 1;
+        }
+        return result == null ? 0 : 1;
+    }
+
+    public static ConnectionPool.PoolStats getPoolStats() {
+        return pool.getStats();
+    }
+
     private static boolean tableExists(String item) {
         return Arrays.asList(tableNames).contains(item);
     }
@@ -32,13 +119,7 @@ public class SQLHelper {
     public static long getRowsAmountFrom(String tableName) {
         if (tableExists(tableName)) {
             var rowsAmountQuery = "SELECT COUNT(*) FROM " + tableName + ";";
-            long rowsAmount;
-
-            try (
-                    var conn = DriverManager.getConnection(dbUrl, userDB, passwordDB);
-            ) {
-                rowsAmount = runner.query(conn, rowsAmountQuery, new ScalarHandler<>());
-            }
+            long rowsAmount = query(rowsAmountQuery, new ScalarHandler<Long>());
             return rowsAmount;
         } else {
             return 0;
@@ -55,37 +136,215 @@ public class SQLHelper {
     @SneakyThrows
     public static Payment getLastEntryFromPaymentsTable() {
         var statusQuery = "SELECT status, amount FROM payment_entity WHERE transaction_id = (SELECT payment_id FROM order_entity ORDER BY created DESC LIMIT 1);";
-        Payment payment;
         ResultSetHandler<Payment> resultHandler = new BeanHandler<Payment>(Payment.class);
-
-        try (
-                var conn = DriverManager.getConnection(dbUrl, userDB, passwordDB);
-        ) {
-            payment = runner.query(conn, statusQuery, resultHandler);
-        }
-        return payment;
+        return query(statusQuery, resultHandler);
     }
 
     @SneakyThrows
     public static String getLastStatusFromCreditsTable() {
         var statusQuery = "SELECT status FROM credit_request_entity WHERE bank_id = (SELECT credit_id FROM order_entity ORDER BY created DESC LIMIT 1);";
-        String status;
+        return query(statusQuery, new ScalarHandler<String>());
+    }
 
+    // отметка (максимальный created) по всем трём таблицам одним запросом;
+    // дальше по ней выбираются только строки, добавленные после снимка
+    @SneakyThrows
+    public static Snapshot takeSnapshot() {
+        var watermarkQuery = "SELECT (SELECT MAX(created) FROM order_entity), " +
+                "(SELECT MAX(created) FROM payment_entity), " +
+                "(SELECT MAX(created) FROM credit_request_entity);";
+        Object[] watermarks = query(watermarkQuery, new ArrayHandler());
+        return new Snapshot(Map.of(
+                "order_entity", Optional.ofNullable(watermarks[0]),
+                "payment_entity", Optional.ofNullable(watermarks[1]),
+                "credit_request_entity", Optional.ofNullable(watermarks[2])));
+    }
+
+    @Value
+    public static class Snapshot {
+        private Map<String, Optional<Object>> watermarks;
+
+        // условие "строка добавлена после снимка"; для пустой на момент снимка таблицы подходят все строки
+        private String newRowsCondition(String tableName) {
+            return watermarks.get(tableName).isPresent() ? " WHERE created > ?" : "";
+        }
+
+        private Object[] newRowsParams(String tableName) {
+            return watermarks.get(tableName).map(watermark -> new Object[]{watermark}).orElse(new Object[0]);
+        }
+
+        @SneakyThrows
+        public long getNewRowsAmountFrom(String tableName) {
+            if (!tableExists(tableName)) {
+                return 0;
+            }
+            try (
+                    var conn = borrow();
+            ) {
+                return getNewRowsAmountFrom(conn, tableName);
+            }
+        }
+
+        private long getNewRowsAmountFrom(Connection conn, String tableName) throws SQLException {
+            var query = "SELECT COUNT(*) FROM " + tableName + newRowsCondition(tableName) + ";";
+            Number rowsAmount = query(conn, query, new ScalarHandler<Number>(), newRowsParams(tableName));
+            return rowsAmount.longValue();
+        }
+
+        // ждёт, пока после снимка появится не меньше expectedAmount строк, и возвращает их количество;
+        // выходит сразу, как только строки появились, а по истечении timeout - с тем, что есть
+        @SneakyThrows
+        public long awaitNewRows(String tableName, long expectedAmount, Duration timeout) {
+            if (!tableExists(tableName)) {
+                return 0;
+            }
+            long deadline = System.nanoTime() + timeout.toNanos();
+            if (insertNotifications) {
+                installInsertNotifications();
+                return awaitWithNotifications(this, tableName, expectedAmount, deadline);
+            }
+            return awaitWithPolling(this, tableName, expectedAmount, deadline);
+        }
+
+        public long awaitNewOrder(Duration timeout) {
+            return awaitNewRows("order_entity", 1, timeout);
+        }
+
+        @SneakyThrows
+        public List<Payment> getNewPayments() {
+            var query = "SELECT status, amount FROM payment_entity" + newRowsCondition("payment_entity") + " ORDER BY created;";
+            return query(query, new BeanListHandler<>(Payment.class), newRowsParams("payment_entity"));
+        }
+
+        @SneakyThrows
+        public List<String> getNewCreditStatuses() {
+            var query = "SELECT status FROM credit_request_entity" + newRowsCondition("credit_request_entity") + " ORDER BY created;";
+            return query(query, new ColumnListHandler<String>("status"), newRowsParams("credit_request_entity"));
+        }
+
+        // при параллельном запуске после снимка появляются и строки других тестов, поэтому ждём не "последнюю" строку,
+        // а первую подходящую среди новых; пустой результат - подходящая строка не появилась за timeout
+        public Optional<Payment> awaitNewPayment(Predicate<Payment> matcher, Duration timeout) {
+            return awaitNewRow("payment_entity", this::getNewPayments, matcher, timeout);
+        }
+
+        public Optional<String> awaitNewCreditStatus(String expectedStatus, Duration timeout) {
+            return awaitNewRow("credit_request_entity", this::getNewCreditStatuses, expectedStatus::equals, timeout);
+        }
+
+        // ждём ещё одну строку каждый раз, когда среди уже появившихся нет подходящей
+        private <T> Optional<T> awaitNewRow(String tableName, Supplier<List<T>> newRows, Predicate<T> matcher, Duration timeout) {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            long expectedAmount = 1;
+            while (true) {
+                var remaining = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+                long rowsAmount = awaitNewRows(tableName, expectedAmount, remaining);
+                var match = newRows.get().stream().filter(matcher).findFirst();
+                if (match.isPresent() || rowsAmount < expectedAmount) {
+                    return match;
+                }
+                expectedAmount = rowsAmount + 1;
+            }
+        }
+    }
+
+    // ожидание строк через LISTEN/NOTIFY вместо опроса (только PostgreSQL, включается -Ddb.notify=true):
+    // триггеры ставятся при первом ожидании и снимаются в конце прогона
+    private static final boolean insertNotifications = dialect == DbDialect.POSTGRESQL && Boolean.getBoolean("db.notify");
+    private static boolean notificationsInstalled;
+
+    private static synchronized void installInsertNotifications() throws SQLException {
+        if (!notificationsInstalled) {
+            try (
+                    var conn = borrow();
+            ) {
+                DatabaseProvisioner.installInsertNotifications(conn);
+            }
+            RunReports.onRunFinished(SQLHelper::dropInsertNotifications);
+            notificationsInstalled = true;
+        }
+    }
+
+    @SneakyThrows
+    private static void dropInsertNotifications() {
         try (
-                var conn = DriverManager.getConnection(dbUrl, userDB, passwordDB);
+                var conn = borrow();
         ) {
-            status = runner.query(conn, statusQuery, new ScalarHandler<>());
+            DatabaseProvisioner.dropInsertNotifications(conn);
+        }
+    }
+
+    private static long awaitWithNotifications(Snapshot snapshot, String tableName, long expectedAmount, long deadline) throws SQLException {
+        try (
+                var conn = borrow();
+        ) {
+            execute(conn, "LISTEN " + DatabaseProvisioner.insertChannel + ";");
+            try {
+                var pgConnection = conn.unwrap(PGConnection.class);
+                // подписка оформлена до первой проверки, поэтому вставка между проверкой и ожиданием не потеряется
+                long rowsAmount = snapshot.getNewRowsAmountFrom(conn, tableName);
+                while (rowsAmount < expectedAmount) {
+                    long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remainingMillis <= 0) {
+                        break;
+                    }
+                    long waitStart = System.nanoTime();
+                    var notifications = pgConnection.getNotifications((int) Math.min(remainingMillis, Integer.MAX_VALUE));
+                    QueryMetrics.recordWait(System.nanoTime() - waitStart);
+                    if (notifications != null && Arrays.stream(notifications).anyMatch(n -> tableName.equals(n.getParameter()))) {
+                        rowsAmount = snapshot.getNewRowsAmountFrom(conn, tableName);
+                    }
+                }
+                return rowsAmount;
+            } finally {
+                execute(conn, "UNLISTEN " + DatabaseProvisioner.insertChannel + ";");
+            }
+        }
+    }
+
+    // опрос с экспоненциально растущей паузой: быстрый ответ, если SUT уже записал строку, и мало запросов, если нет
+    private static long awaitWithPolling(Snapshot snapshot, String tableName, long expectedAmount, long deadline) throws InterruptedException {
+        long pauseMillis = 20;
+        long rowsAmount = snapshot.getNewRowsAmountFrom(tableName);
+        while (rowsAmount < expectedAmount) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                break;
+            }
+            long waitStart = System.nanoTime();
+            Thread.sleep(Math.min(pauseMillis, remainingMillis));
+            QueryMetrics.recordWait(System.nanoTime() - waitStart);
+            pauseMillis = Math.min(pauseMillis * 2, 500);
+            rowsAmount = snapshot.getNewRowsAmountFrom(tableName);
         }
-        return status;
+        return rowsAmount;
     }
 
+    // TRUNCATE не зависит от количества строк в таблицах, в отличие от построчного DELETE
     @SneakyThrows
     public static void cleanDatabase() {
         try (
-                var conn = DriverManager.getConnection(dbUrl, userDB, passwordDB);
+                var conn = borrow();
         ) {
-            for (int i = 0; i < tableNames.length; i++) {
-                runner.execute(conn, "DELETE FROM " + tableNames[i] + ";");
+            switch (dialect) {
+                case POSTGRESQL:
+                    execute(conn, "TRUNCATE TABLE " + String.join(", ", tableNames) + " RESTART IDENTITY CASCADE;");
+                    break;
+                case MYSQL:
+                    // проверки внешних ключей отключаются только для текущей сессии, поэтому возвращаем их до возврата соединения в пул
+                    execute(conn, "SET FOREIGN_KEY_CHECKS = 0;");
+                    try {
+                        for (String tableName : tableNames) {
+                            execute(conn, "TRUNCATE TABLE " + tableName + ";");
+                        }
+                    } finally {
+                        execute(conn, "SET FOREIGN_KEY_CHECKS = 1;");
+                    }
+                    break;
+                default:
+                    for (String tableName : tableNames) {
+                        execute(conn, "DELETE FROM " + tableName + ";");
+                    }
             }
         }
     }
@@ -0,0 +1,99 @@
+package ru.netology.helpers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+// SUT (artifacts/aqa-shop.jar) отдельным процессом для каждого воркера: своя БД, свой порт и свой шлюз
+// (WorkerEnvironment); включается -Dsut.launch=true, процесс останавливается при завершении тестовой JVM
+public class SutProcess {
+    private static volatile Process process;
+
+    private static final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    private SutProcess() {
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("sut.launch");
+    }
+
+    public static void ensureStarted() {
+        if (process == null) {
+            synchronized (SutProcess.class) {
+                if (process == null) {
+                    process = start();
+                }
+            }
+        }
+    }
+
+    private static Process start() {
+        var jar = Path.of(System.getProperty("sut.jar", "artifacts/aqa-shop.jar"));
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("Не найден jar SUT: " + jar.toAbsolutePath() + " (путь задаётся -Dsut.jar)");
+        }
+        var sutUrl = URI.create(WorkerEnvironment.getSutUrl());
+        var gateUrl = "http://localhost:" + WorkerEnvironment.getGatePort();
+        var log = Path.of("build", "sut", "sut-w" + WorkerEnvironment.getWorkerIndex() + ".log");
+        var command = List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Dspring.datasource.url=" + WorkerEnvironment.getDbUrl(SQLHelper.userDB, SQLHelper.passwordDB),
+                "-Dserver.port=" + sutUrl.getPort(),
+                "-Dspring.payment-gate.url=" + gateUrl + "/payment",
+                "-Dspring.credit-gate.url=" + gateUrl + "/credit",
+                "-jar", jar.toString());
+        try {
+            Files.createDirectories(log.getParent());
+            // рабочая папка - корень проекта: SUT подхватывает из неё application.properties (логин и пароль БД)
+            var started = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+            Runtime.getRuntime().addShutdownHook(new Thread(started::destroy, "sut-shutdown"));
+            awaitReady(started, sutUrl, log);
+            System.out.println("SUT воркера " + WorkerEnvironment.getWorkerIndex() + " запущен: " + sutUrl + ", шлюз " + gateUrl + ", журнал " + log);
+            return started;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось запустить SUT: " + String.join(" ", command), e);
+        }
+    }
+
+    // SUT готов, когда отдаёт главную страницу; до этого соединение отклоняется
+    private static void awaitReady(Process started, URI sutUrl, Path log) {
+        var deadline = System.nanoTime() + Duration.ofSeconds(Long.getLong("sut.startTimeoutSec", 60)).toNanos();
+        var request = HttpRequest.newBuilder(sutUrl).timeout(Duration.ofSeconds(2)).GET().build();
+        while (System.nanoTime() < deadline) {
+            if (!started.isAlive()) {
+                throw new IllegalStateException("SUT завершился с кодом " + started.exitValue() + " при запуске, см. " + log.toAbsolutePath());
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 500) {
+                    return;
+                }
+            } catch (IOException e) {
+                // ещё не слушает порт
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        started.destroy();
+        throw new IllegalStateException("SUT не ответил на " + sutUrl + " за sut.startTimeoutSec, см. " + log.toAbsolutePath());
+    }
+}
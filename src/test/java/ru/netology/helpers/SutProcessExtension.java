@@ -0,0 +1,14 @@
+package ru.netology.helpers;
+
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+// запускает SUT воркера до первого теста (включается -Dsut.launch=true)
+public class SutProcessExtension implements BeforeAllCallback {
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        if (SutProcess.isEnabled()) {
+            SutProcess.ensureStarted();
+        }
+    }
+}
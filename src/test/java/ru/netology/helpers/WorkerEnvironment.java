@@ -0,0 +1,114 @@
+package ru.netology.helpers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// окружение текущего воркера (форка Gradle): своя БД, свой экземпляр SUT и свой симулятор шлюза
+// -Dtest.workers=N включает изоляцию; номер воркера берётся из -Dtest.worker.index
+// или из первого свободного слота среди форков Gradle (org.gradle.test.worker)
+public class WorkerEnvironment {
+    private WorkerEnvironment() {
+    }
+
+    private static final int workers = Integer.getInteger("test.workers", 1);
+    // блокировка слота держится до завершения JVM
+    private static FileLock slotLock;
+    private static final int workerIndex = resolveWorkerIndex();
+    private static volatile String dbUrl;
+
+    private static int resolveWorkerIndex() {
+        var explicit = System.getProperty("test.worker.index");
+        if (explicit != null && !explicit.isBlank()) {
+            return Integer.parseInt(explicit);
+        }
+        var gradleWorker = System.getProperty("org.gradle.test.worker");
+        if (workers > 1 && gradleWorker != null) {
+            return claimSlot();
+        }
+        return 0;
+    }
+
+    // id форков Gradle не обязательно идут подряд (и растут при перезапуске форков), поэтому номер воркера -
+    // первый слот, файл которого не заблокирован другим форком; одновременно работающие форки получают разные номера
+    private static int claimSlot() {
+        var slotsDir = Path.of(System.getProperty("test.worker.slotsDir", "build/worker-slots"));
+        try {
+            Files.createDirectories(slotsDir);
+            for (int slot = 0; slot < workers; slot++) {
+                var channel = FileChannel.open(slotsDir.resolve("slot-" + slot + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                var lock = channel.tryLock();
+                if (lock != null) {
+                    slotLock = lock;
+                    return slot;
+                }
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось занять слот воркера в " + slotsDir.toAbsolutePath(), e);
+        }
+        throw new IllegalStateException("Все " + workers + " слотов воркеров заняты: тестовых процессов больше, чем -Dtest.workers");
+    }
+
+    public static boolean isIsolated() {
+        return workers > 1;
+    }
+
+    // параллельный запуск тестов внутри этой JVM (-Dtest.parallel=true)
+    public static boolean isParallel() {
+        return Boolean.getBoolean("junit.jupiter.execution.parallel.enabled");
+    }
+
+    // число потоков JUnit в этой JVM: 1 без параллельного запуска, иначе -Dtest.threads или, как у стратегии dynamic, по числу ядер
+    public static int getParallelism() {
+        if (!isParallel()) {
+            return 1;
+        }
+        return Integer.getInteger("junit.jupiter.execution.parallel.config.fixed.parallelism", Runtime.getRuntime().availableProcessors());
+    }
+
+    public static int getWorkerIndex() {
+        return workerIndex;
+    }
+
+    // url БД воркера; при включенной изоляции БД создаётся из шаблона при первом обращении
+    public static String getDbUrl(String user, String password) {
+        if (dbUrl == null) {
+            synchronized (WorkerEnvironment.class) {
+                if (dbUrl == null) {
+                    var baseUrl = System.getProperty("db.url");
+                    if (isIsolated()) {
+                        var templateDb = System.getProperty("db.template", DatabaseProvisioner.defaultTemplate(baseUrl));
+                        var workerDb = DatabaseProvisioner.databaseName(baseUrl) + "_w" + workerIndex;
+                        dbUrl = DatabaseProvisioner.provision(baseUrl, templateDb, workerDb, user, password);
+                    } else {
+                        dbUrl = baseUrl;
+                    }
+                }
+            }
+        }
+        return dbUrl;
+    }
+
+    // адрес SUT воркера: -Dsut.port.base=8080 даёт порты 8080, 8081, ... по номеру воркера, иначе -Dsut.url
+    public static String getSutUrl() {
+        var portBase = Integer.getInteger("sut.port.base");
+        if (portBase != null) {
+            return "http://localhost:" + (portBase + workerIndex);
+        }
+        return System.getProperty("sut.url", "http://localhost:8080");
+    }
+
+    // порт симулятора шлюза воркера: -Dgate.port.base=9999 даёт порты 9999, 10000, ... по номеру воркера, иначе -Dgate.port
+    public static int getGatePort() {
+        var portBase = Integer.getInteger("gate.port.base");
+        if (portBase != null) {
+            return portBase + workerIndex;
+        }
+        return Integer.getInteger("gate.port", 9999);
+    }
+}
@@ -0,0 +1,116 @@
+package ru.netology.metrics;
+
+import com.codeborne.selenide.logevents.LogEvent;
+import com.codeborne.selenide.logevents.LogEventListener;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// длительность каждого действия Selenide (open, setValue, click, ожидания shouldHave) с привязкой к методу
+// page object, из которого оно вызвано (FormPage.fillCard, FormPage.sendForm, DashboardPage.openPaymentForm ...);
+// слушатель создаётся на каждый тест, итог складывается в гистограммы прогона и пишется в selenide-timings.json
+public class ActionTimings implements LogEventListener {
+    private static final String pagesPackage = "ru.netology.pages.";
+    private static final String testsPackage = "ru.netology.test.";
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+
+    private static final Map<String, LatencyHistogram> runHistograms = new ConcurrentHashMap<>();
+    private static final ConcurrentLinkedQueue<TestTimings> testTimings = new ConcurrentLinkedQueue<>();
+
+    static {
+        RunReports.onRunFinished(ActionTimings::writeReport);
+    }
+
+    private final String testName;
+    // слушатели SelenideLogger у каждого потока свои, поэтому экземпляр используется одним потоком
+    private final Map<String, LatencyHistogram> histograms = new TreeMap<>();
+
+    public ActionTimings(String testName) {
+        this.testName = testName;
+    }
+
+    @Override
+    public void beforeEvent(LogEvent currentLog) {
+        // длительность берём из самого события после его завершения
+    }
+
+    @Override
+    public void afterEvent(LogEvent currentLog) {
+        var caller = callerOf();
+        var action = actionOf(currentLog);
+        long nanos = TimeUnit.MILLISECONDS.toNanos(currentLog.getDuration());
+        histograms.computeIfAbsent(caller + "/" + action, ignored -> new LatencyHistogram()).record(nanos);
+        TimeBreakdown.record(TimeBreakdown.classify(caller, action), nanos);
+    }
+
+    // "setValue(4444 ...)" -> "setValue"; у open() в subject адрес страницы, а действие - в element
+    private static String actionOf(LogEvent event) {
+        var subject = event.getSubject();
+        int argsStart = subject == null ? -1 : subject.indexOf('(');
+        return argsStart > 0 ? subject.substring(0, argsStart) : event.getElement();
+    }
+
+    // ближайший к действию метод page object, а если действие вызвано из теста напрямую - метод теста;
+    // кадры лямбд (lambda$имя$N) пропускаются, иначе действие попало бы не под свой метод
+    private static String callerOf() {
+        Optional<StackWalker.StackFrame> frame = stackWalker.walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith(pagesPackage) || f.getClassName().startsWith(testsPackage))
+                .filter(f -> !f.getMethodName().startsWith("lambda$"))
+                .findFirst());
+        return frame.map(f -> simpleName(f.getClassName()) + "." + f.getMethodName()).orElse("other");
+    }
+
+    private static String simpleName(String className) {
+        var name = className.substring(className.lastIndexOf('.') + 1);
+        int nested = name.indexOf('$');
+        return nested > 0 ? name.substring(0, nested) : name;
+    }
+
+    // вызывается после теста: сводка теста сохраняется, а его гистограммы добавляются к гистограммам прогона
+    public void finish() {
+        var actions = new TreeMap<String, LatencyHistogram.Summary>();
+        long totalNanos = 0;
+        for (var entry : histograms.entrySet()) {
+            actions.put(entry.getKey(), entry.getValue().getSummary());
+            totalNanos += entry.getValue().getTotalNanos();
+            runHistograms.computeIfAbsent(entry.getKey(), ignored -> new LatencyHistogram()).add(entry.getValue());
+        }
+        testTimings.add(new TestTimings(testName, TimeUnit.NANOSECONDS.toMillis(totalNanos), actions));
+        histograms.clear();
+    }
+
+    public static Report getReport() {
+        var run = new TreeMap<String, LatencyHistogram.Summary>();
+        runHistograms.forEach((key, histogram) -> run.put(key, histogram.getSummary()));
+        return new Report(run, testTimings.stream()
+                .sorted((a, b) -> Long.compare(b.getTotalMs(), a.getTotalMs()))
+                .collect(Collectors.toList()));
+    }
+
+    public static void writeReport() {
+        if (!testTimings.isEmpty()) {
+            ReportFiles.writeJson("selenide-timings", getReport());
+        }
+    }
+
+    @Value
+    public static class TestTimings {
+        private String test;
+        private long totalMs;
+        private Map<String, LatencyHistogram.Summary> actions;
+    }
+
+    // actions - по всему прогону, tests - по каждому тесту, самые долгие первыми
+    @Value
+    public static class Report {
+        private Map<String, LatencyHistogram.Summary> actions;
+        private List<TestTimings> tests;
+    }
+}
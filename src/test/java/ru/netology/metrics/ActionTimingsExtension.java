@@ -0,0 +1,38 @@
+package ru.netology.metrics;
+
+import com.codeborne.selenide.logevents.SelenideLogger;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+// подключает ActionTimings к SelenideLogger на время каждого теста (слушатели у каждого потока свои)
+public class ActionTimingsExtension implements BeforeEachCallback, AfterEachCallback {
+    private static final String listenerName = "timings";
+    private static final ExtensionContext.Namespace namespace = ExtensionContext.Namespace.create(ActionTimingsExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        var testName = testName(context);
+        CurrentTest.set(testName);
+        var timings = new ActionTimings(testName);
+        SelenideLogger.addListener(listenerName, timings);
+        context.getStore(namespace).put(ActionTimings.class, timings);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        SelenideLogger.removeListener(listenerName);
+        CurrentTest.clear();
+        var timings = context.getStore(namespace).remove(ActionTimings.class, ActionTimings.class);
+        if (timings != null) {
+            timings.finish();
+        }
+    }
+
+    // PaymentTest.IncreasedTimeout.shouldApprovePaymentWithValidData: 1. Оплата одобрена (Позитивный сценарий)
+    static String testName(ExtensionContext context) {
+        var testClass = context.getRequiredTestClass();
+        var className = testClass.getName().substring(testClass.getPackageName().length() + 1).replace('$', '.');
+        return className + "." + context.getRequiredTestMethod().getName() + ": " + context.getDisplayName();
+    }
+}
@@ -0,0 +1,22 @@
+package ru.netology.metrics;
+
+// имя теста, выполняющегося в текущем потоке, чтобы метрики (запросы к БД и т.п.) можно было отнести к тесту
+public class CurrentTest {
+    private CurrentTest() {
+    }
+
+    private static final ThreadLocal<String> name = new ThreadLocal<>();
+
+    public static String get() {
+        var current = name.get();
+        return current == null ? "вне теста" : current;
+    }
+
+    static void set(String testName) {
+        name.set(testName);
+    }
+
+    static void clear() {
+        name.remove();
+    }
+}
@@ -0,0 +1,159 @@
+package ru.netology.metrics;
+
+import lombok.Value;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// гистограмма задержек в наносекундах с логарифмическими корзинами (погрешность процентилей - не больше ширины корзины,
+// то есть 1/64 её нижней границы, около 1,6%);
+// запись без блокировок и аллокаций, можно писать из многих потоков одновременно
+public class LatencyHistogram {
+    // в каждой степени двойки 64 корзины, значения до 128 нс хранятся точно
+    private static final int subBucketBits = 6;
+    private static final int bucketsCount = (64 - subBucketBits) << subBucketBits;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(bucketsCount);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+    static int indexOf(long value) {
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - (subBucketBits + 1));
+        return (shift << subBucketBits) + (int) (value >>> shift);
+    }
+
+    // нижняя граница значений, попадающих в корзину
+    static long valueOf(int index) {
+        if (index < 2 << subBucketBits) {
+            return index;
+        }
+        int shift = (index >> subBucketBits) - 1;
+        return (long) (index - (shift << subBucketBits)) << shift;
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+        min.accumulateAndGet(value, Math::min);
+    }
+
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < bucketsCount; i++) {
+            long bucket = other.buckets.get(i);
+            if (bucket != 0) {
+                buckets.addAndGet(i, bucket);
+            }
+        }
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+        max.accumulate(other.max.get());
+        min.accumulateAndGet(other.min.get(), Math::min);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return sum.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    // percentile от 0 до 100
+    public long getPercentileNanos(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < bucketsCount; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return i + 1 < bucketsCount ? Math.min(valueOf(i + 1) - 1, max.get()) : max.get();
+            }
+        }
+        return max.get();
+    }
+
+    // корзины и счётчики для файла отчёта: гистограммы разных процессов складываются без потери точности процентилей
+    public Data getData() {
+        var nonEmpty = new TreeMap<Integer, Long>();
+        for (int i = 0; i < bucketsCount; i++) {
+            long bucket = buckets.get(i);
+            if (bucket != 0) {
+                nonEmpty.put(i, bucket);
+            }
+        }
+        return new Data(count.sum(), sum.sum(), min.get(), max.get(), nonEmpty);
+    }
+
+    public static LatencyHistogram fromData(Data data) {
+        var histogram = new LatencyHistogram();
+        data.getBuckets().forEach((index, bucket) -> histogram.buckets.addAndGet(index, bucket));
+        histogram.count.add(data.getCount());
+        histogram.sum.add(data.getSumNanos());
+        histogram.max.accumulate(data.getMaxNanos());
+        histogram.min.accumulateAndGet(data.getMinNanos(), Math::min);
+        return histogram;
+    }
+
+    public Summary getSummary() {
+        long total = count.sum();
+        return new Summary(
+                total,
+                total == 0 ? 0 : toMillis(sum.sum() / total),
+                total == 0 ? 0 : toMillis(min.get()),
+                toMillis(getPercentileNanos(50)),
+                toMillis(getPercentileNanos(90)),
+                toMillis(getPercentileNanos(95)),
+                toMillis(getPercentileNanos(99)),
+                toMillis(getPercentileNanos(99.9)),
+                toMillis(max.get()));
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1) * 1000) / 1000.0;
+    }
+
+    // непустые корзины по номеру
+    @Value
+    public static class Data {
+        private long count;
+        private long sumNanos;
+        private long minNanos;
+        private long maxNanos;
+        private Map<Integer, Long> buckets;
+    }
+
+    // сводка в миллисекундах, удобная для отчётов
+    @Value
+    public static class Summary {
+        private long count;
+        private double meanMs;
+        private double minMs;
+        private double p50Ms;
+        private double p90Ms;
+        private double p95Ms;
+        private double p99Ms;
+        private double p999Ms;
+        private double maxMs;
+    }
+}
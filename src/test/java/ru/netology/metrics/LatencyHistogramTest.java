@@ -0,0 +1,89 @@
+package ru.netology.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+    final double[] percentiles = {0, 50, 90, 95, 99, 99.9, 100};
+
+    static long exactPercentile(long[] sorted, double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * sorted.length));
+        return sorted[(int) rank - 1];
+    }
+
+    @Test
+    @DisplayName("Процентили не меньше точных и больше них не более чем на 1/64")
+    void shouldKeepPercentileErrorWithinBucketWidth() {
+        var random = new Random(1);
+        var histogram = new LatencyHistogram();
+        var values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // от микросекунд до десятков секунд
+            values[i] = (long) Math.exp(random.nextDouble() * 17) * 1000;
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : percentiles) {
+            long exact = exactPercentile(values, percentile);
+            long actual = histogram.getPercentileNanos(percentile);
+            assertTrue(actual >= exact, "p" + percentile + ": " + actual + " < " + exact);
+            assertTrue(actual - exact <= exact / 64, "p" + percentile + ": " + actual + " вместо " + exact);
+        }
+        assertEquals(values[values.length - 1], histogram.getMaxNanos());
+    }
+
+    @Test
+    @DisplayName("Значения до 128 нс хранятся точно")
+    void shouldStoreSmallValuesExactly() {
+        for (long value = 0; value < 128; value++) {
+            var histogram = new LatencyHistogram();
+            histogram.record(value);
+            histogram.record(1000);
+
+            assertEquals(value, histogram.getPercentileNanos(50));
+        }
+    }
+
+    @Test
+    @DisplayName("Гистограмма, собранная из файлов отчётов процессов, совпадает с общей")
+    void shouldMergeReportDataWithoutLoss() {
+        var random = new Random(2);
+        var whole = new LatencyHistogram();
+        var merged = new LatencyHistogram();
+        for (int fork = 0; fork < 4; fork++) {
+            var forkHistogram = new LatencyHistogram();
+            for (int i = 0; i < 10_000; i++) {
+                long value = (long) (random.nextGaussian() * 50_000_000 + 200_000_000);
+                forkHistogram.record(value);
+                whole.record(value);
+            }
+            merged.add(LatencyHistogram.fromData(forkHistogram.getData()));
+        }
+
+        assertEquals(whole.getCount(), merged.getCount());
+        assertEquals(whole.getTotalNanos(), merged.getTotalNanos());
+        assertEquals(whole.getMaxNanos(), merged.getMaxNanos());
+        assertEquals(whole.getData().getMinNanos(), merged.getData().getMinNanos());
+        assertEquals(whole.getData().getBuckets(), merged.getData().getBuckets());
+        for (double percentile : percentiles) {
+            assertEquals(whole.getPercentileNanos(percentile), merged.getPercentileNanos(percentile));
+        }
+    }
+
+    @Test
+    @DisplayName("Пустая гистограмма")
+    void shouldReportZerosWhenEmpty() {
+        var histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(99));
+        assertEquals(0.0, histogram.getSummary().getMinMs(), 0);
+    }
+}
@@ -0,0 +1,126 @@
+package ru.netology.metrics;
+
+import com.google.gson.GsonBuilder;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// время от нажатия "Продолжить" до уведомления с решением банка, отдельно для покупки и кредита;
+// каждый тестовый процесс пишет свои гистограммы в notification-latency*.json, а бюджеты
+// (-Dsla.payment.p95Ms=3000 -Dsla.credit.p99Ms=5000 или общие -Dsla.p95Ms, -Dsla.p99Ms) проверяет задача notificationLatency
+// по гистограммам всех процессов вместе: процентиль одного форка ничего не говорит о процентиле прогона
+public class NotificationLatency {
+    private NotificationLatency() {
+    }
+
+    private static final double[] budgetPercentiles = {95, 99};
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    static {
+        RunReports.onRunFinished(NotificationLatency::writeReport);
+    }
+
+    // operation - PAYMENT или CREDIT, verdict - APPROVED или ERROR
+    // (уведомление об ошибке - отказ банка или сбой шлюза 4xx/5xx, по интерфейсу их не различить)
+    public static void record(String operation, String verdict, long nanos) {
+        histograms.computeIfAbsent(operation, ignored -> new LatencyHistogram()).record(nanos);
+        histograms.computeIfAbsent(operation + "/" + verdict, ignored -> new LatencyHistogram()).record(nanos);
+    }
+
+    public static LatencyHistogram.Summary getSummary(String operation) {
+        var histogram = histograms.get(operation);
+        return histogram == null ? new LatencyHistogram().getSummary() : histogram.getSummary();
+    }
+
+    // gradlew notificationLatency (запускается после test): сводка по всем процессам в build/reports/notification-latency.json,
+    // при превышении бюджета задача падает
+    public static void main(String[] args) throws IOException {
+        var inputDir = ReportFiles.resultsDir();
+        var merged = readHistograms();
+        if (merged.isEmpty()) {
+            System.out.println("Нет замеров задержки уведомлений в " + inputDir.toAbsolutePath());
+            return;
+        }
+        var violations = getViolations(merged);
+        var output = Path.of(System.getProperty("notificationLatency.report", "build/reports/notification-latency.json"));
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.writeString(output, new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create()
+                .toJson(toReport(merged, violations)), StandardCharsets.UTF_8);
+        System.out.println("Задержка уведомлений по всем процессам: " + output.toAbsolutePath());
+        if (!violations.isEmpty()) {
+            System.err.println("Превышен бюджет задержки уведомлений: " + String.join("; ", violations));
+            System.exit(1);
+        }
+    }
+
+    // только файлы текущего прогона: файлы форков прошлых прогонов исказили бы процентили
+    private static Map<String, LatencyHistogram> readHistograms() throws IOException {
+        var merged = new TreeMap<String, LatencyHistogram>();
+        for (var report : ReportFiles.readRun("notification-latency", Report.class, Report::getRunId)) {
+            if (report.getHistograms() != null) {
+                report.getHistograms().forEach((key, data) ->
+                        merged.computeIfAbsent(key, ignored -> new LatencyHistogram()).add(LatencyHistogram.fromData(data)));
+            }
+        }
+        return merged;
+    }
+
+    // бюджет в мс для операции и процентиля; null - не задан
+    private static Long budgetMillis(String operation, double percentile) {
+        var suffix = ".p" + (int) percentile + "Ms";
+        return Long.getLong("sla." + operation.toLowerCase(Locale.ROOT) + suffix, Long.getLong("sla" + suffix));
+    }
+
+    static List<String> getViolations(Map<String, LatencyHistogram> histograms) {
+        var violations = new ArrayList<String>();
+        for (var entry : new TreeMap<>(histograms).entrySet()) {
+            if (entry.getKey().contains("/")) {
+                continue;
+            }
+            for (double percentile : budgetPercentiles) {
+                var budget = budgetMillis(entry.getKey(), percentile);
+                long actual = TimeUnit.NANOSECONDS.toMillis(entry.getValue().getPercentileNanos(percentile));
+                if (budget != null && actual > budget) {
+                    violations.add(String.format("%s p%d = %d мс > бюджета %d мс (замеров: %d)",
+                            entry.getKey(), (int) percentile, actual, budget, entry.getValue().getCount()));
+                }
+            }
+        }
+        return violations;
+    }
+
+    private static void writeReport() {
+        if (!histograms.isEmpty()) {
+            ReportFiles.writeJson("notification-latency", toReport(histograms, null));
+        }
+    }
+
+    private static Report toReport(Map<String, LatencyHistogram> source, List<String> violations) {
+        var latencies = new TreeMap<String, LatencyHistogram.Summary>();
+        var data = new TreeMap<String, LatencyHistogram.Data>();
+        source.forEach((key, histogram) -> {
+            latencies.put(key, histogram.getSummary());
+            data.put(key, histogram.getData());
+        });
+        return new Report(ReportFiles.runId(), latencies, violations, data);
+    }
+
+    // violations - только в сводке задачи notificationLatency
+    @Value
+    public static class Report {
+        private String runId;
+        private Map<String, LatencyHistogram.Summary> latencies;
+        private List<String> violations;
+        private Map<String, LatencyHistogram.Data> histograms;
+    }
+}
@@ -0,0 +1,176 @@
+package ru.netology.metrics;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// метрики запросов SQLHelper: время получения соединения, время выполнения и число строк по "отпечатку" запроса
+// (SQL без литералов), журнал медленных запросов (-Ddb.slowQueryMs=500) и стоимость БД для каждого теста;
+// всё это попадает только в sql-timings.json, запросы с ошибкой учитываются отдельным счётчиком
+public class QueryMetrics {
+    private QueryMetrics() {
+    }
+
+    private static final long slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("db.slowQueryMs", 500));
+    private static final int maxSlowQueries = 100;
+
+    private static final Pattern stringLiteral = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern numberLiteral = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern whitespace = Pattern.compile("\\s+");
+    private static final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+    private static final LatencyHistogram connect = new LatencyHistogram();
+    private static final Map<String, QueryStats> queries = new ConcurrentHashMap<>();
+    private static final Map<String, TestStats> tests = new ConcurrentHashMap<>();
+    private static final ConcurrentLinkedQueue<SlowQuery> slowQueries = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger slowQueriesCount = new AtomicInteger();
+
+    public static String fingerprint(String sql) {
+        return fingerprints.computeIfAbsent(sql, key -> {
+            var normalized = stringLiteral.matcher(key).replaceAll("?");
+            normalized = numberLiteral.matcher(normalized).replaceAll("?");
+            normalized = whitespace.matcher(normalized).replaceAll(" ").trim();
+            return normalized.endsWith(";") ? normalized.substring(0, normalized.length() - 1) : normalized;
+        });
+    }
+
+    // время ожидания соединения из пула (для нового соединения - вместе с подключением к БД)
+    public static void recordConnect(long nanos) {
+        connect.record(nanos);
+        testStats().connectNanos.add(nanos);
+        TimeBreakdown.record(TimeBreakdown.Bucket.DB_CHECKS, nanos);
+    }
+
+    // ожидание появления строк в БД между запросами (пауза опроса или ожидание NOTIFY)
+    public static void recordWait(long nanos) {
+        testStats().waitNanos.add(nanos);
+        TimeBreakdown.record(TimeBreakdown.Bucket.DB_CHECKS, nanos);
+    }
+
+    // вызывается и для запроса, завершившегося исключением (failed): время до ошибки тоже потрачено тестом
+    public static void recordQuery(String sql, long executionNanos, long rows, boolean failed) {
+        var fingerprint = fingerprint(sql);
+        queries.computeIfAbsent(fingerprint, ignored -> new QueryStats()).record(executionNanos, rows, failed);
+        var test = testStats();
+        test.queries.increment();
+        test.executionNanos.add(executionNanos);
+        TimeBreakdown.record(TimeBreakdown.Bucket.DB_CHECKS, executionNanos);
+
+        if (executionNanos >= slowQueryNanos) {
+            if (slowQueriesCount.incrementAndGet() <= maxSlowQueries) {
+                slowQueries.add(new SlowQuery(CurrentTest.get(), fingerprint, TimeUnit.NANOSECONDS.toMillis(executionNanos), rows, failed));
+            }
+        }
+    }
+
+    private static TestStats testStats() {
+        return tests.computeIfAbsent(CurrentTest.get(), ignored -> new TestStats());
+    }
+
+    public static Report getReport(Object poolStats) {
+        var queryReports = new TreeMap<String, QueryReport>();
+        queries.forEach((fingerprint, stats) -> queryReports.put(fingerprint, stats.toReport()));
+        var testReports = tests.entrySet().stream()
+                .map(entry -> entry.getValue().toReport(entry.getKey()))
+                .sorted(Comparator.comparingDouble(TestReport::getTotalMs).reversed())
+                .collect(Collectors.toList());
+        return new Report(connect.getSummary(), queryReports, new ArrayList<>(slowQueries), slowQueriesCount.get(),
+                testReports, poolStats);
+    }
+
+    public static void writeReport(Object poolStats) {
+        if (!queries.isEmpty()) {
+            ReportFiles.writeJson("sql-timings", getReport(poolStats));
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1e3) / 1e3;
+    }
+
+    private static class QueryStats {
+        private final LatencyHistogram execution = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAccumulator maxRows = new LongAccumulator(Math::max, 0);
+        private final LongAdder errors = new LongAdder();
+
+        void record(long executionNanos, long rowsAmount, boolean failed) {
+            execution.record(executionNanos);
+            rows.add(rowsAmount);
+            maxRows.accumulate(rowsAmount);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        QueryReport toReport() {
+            return new QueryReport(execution.getSummary(), toMillis(execution.getTotalNanos()), rows.sum(), maxRows.get(), errors.sum());
+        }
+    }
+
+    private static class TestStats {
+        private final LongAdder queries = new LongAdder();
+        private final LongAdder connectNanos = new LongAdder();
+        private final LongAdder executionNanos = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+
+        TestReport toReport(String test) {
+            double connectMs = toMillis(connectNanos.sum());
+            double executionMs = toMillis(executionNanos.sum());
+            double waitMs = toMillis(waitNanos.sum());
+            return new TestReport(test, queries.sum(), connectMs, executionMs, waitMs,
+                    Math.round((connectMs + executionMs + waitMs) * 1e3) / 1e3);
+        }
+    }
+
+    @Value
+    public static class SlowQuery {
+        private String test;
+        private String query;
+        private long millis;
+        private long rows;
+        private boolean failed;
+    }
+
+    @Value
+    public static class QueryReport {
+        private LatencyHistogram.Summary execution;
+        private double totalMs;
+        private long rows;
+        private long maxRows;
+        private long errors;
+    }
+
+    @Value
+    public static class TestReport {
+        private String test;
+        private long queries;
+        private double connectMs;
+        private double executionMs;
+        private double waitMs;
+        private double totalMs;
+    }
+
+    // tests - стоимость БД по тестам, самые дорогие первыми
+    @Value
+    public static class Report {
+        private LatencyHistogram.Summary connect;
+        private Map<String, QueryReport> queries;
+        private List<SlowQuery> slowQueries;
+        private int slowQueriesTotal;
+        private List<TestReport> tests;
+        private Object pool;
+    }
+}
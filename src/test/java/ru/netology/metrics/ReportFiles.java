@@ -0,0 +1,98 @@
+package ru.netology.metrics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import ru.netology.helpers.WorkerEnvironment;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+
+// машиночитаемые отчёты прогона кладутся рядом с результатами Allure
+public class ReportFiles {
+    private ReportFiles() {
+    }
+
+    // id прогона: Gradle передаёт один id всем форкам сборки (-Dreport.runId; шардам в CI можно задать общий свой),
+    // сводные отчёты по нему берут файлы только текущего прогона, а не оставшиеся от прошлых
+    private static final String runId = System.getProperty("report.runId", UUID.randomUUID().toString());
+
+    public static String runId() {
+        return runId;
+    }
+
+    public static Path resultsDir() {
+        return Path.of(System.getProperty("allure.results.directory", "build/allure-results"));
+    }
+
+    // у каждого воркера свой файл, чтобы параллельные процессы не перезаписывали отчёты друг друга; суффикс - номер воркера,
+    // а не id форка Gradle: id растут от прогона к прогону, и файлы прошлых прогонов копились бы, а номеров воркеров всегда test.workers
+    public static String forkSuffix() {
+        return WorkerEnvironment.isIsolated() || System.getProperty("test.worker.index") != null
+                ? "-w" + WorkerEnvironment.getWorkerIndex()
+                : "";
+    }
+
+    // отчёты baseName*.json одного прогона: заданного -Dreport.runId или, без него, того, чей файл записан последним
+    public static <T> List<T> readRun(String baseName, Class<T> type, Function<T, String> runIdOf) throws IOException {
+        var dir = resultsDir();
+        var reports = new ArrayList<T>();
+        if (!Files.isDirectory(dir)) {
+            return reports;
+        }
+        var files = new ArrayList<Path>();
+        try (DirectoryStream<Path> found = Files.newDirectoryStream(dir, baseName + "*.json")) {
+            found.forEach(files::add);
+        }
+        files.sort(Comparator.comparing(ReportFiles::lastModified).reversed());
+        var gson = new Gson();
+        String wanted = System.getProperty("report.runId");
+        boolean wantedKnown = wanted != null;
+        for (Path file : files) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                var report = gson.fromJson(reader, type);
+                if (report == null) {
+                    continue;
+                }
+                if (!wantedKnown) {
+                    wanted = runIdOf.apply(report);
+                    wantedKnown = true;
+                }
+                if (Objects.equals(wanted, runIdOf.apply(report))) {
+                    reports.add(report);
+                }
+            }
+        }
+        return reports;
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Path writeJson(String baseName, Object report) {
+        var path = resultsDir().resolve(baseName + forkSuffix() + ".json");
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Files.writeString(path, new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(report), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.netology.metrics;
+
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// отчёты, которые пишутся после завершения всех тестов процесса: ресурс в корневом хранилище JUnit
+// закрывается после последнего теста; ошибка любого из них роняет прогон, но только после того, как отработали все
+public class RunReports implements BeforeAllCallback {
+    private static final List<Runnable> writers = new CopyOnWriteArrayList<>();
+
+    // writer вызывается один раз в конце прогона; если он бросит исключение, остальные отчёты всё равно запишутся
+    public static void onRunFinished(Runnable writer) {
+        writers.add(writer);
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        context.getRoot().getStore(ExtensionContext.Namespace.GLOBAL).getOrComputeIfAbsent(RunReports.class,
+                ignored -> (ExtensionContext.Store.CloseableResource) RunReports::writeAll);
+    }
+
+    private static void writeAll() throws Throwable {
+        Throwable failure = null;
+        for (Runnable writer : writers) {
+            try {
+                writer.run();
+            } catch (RuntimeException | AssertionError e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
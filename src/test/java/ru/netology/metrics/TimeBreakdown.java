@@ -0,0 +1,103 @@
+package ru.netology.metrics;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// на что уходит время каждого теста: запуск браузера, загрузка страниц, работа с формой, ожидание решения банка,
+// проверки в БД; остаток (логика теста, Allure, JUnit) - OTHER; итог прогона пишется в time-breakdown.json,
+// сводный отчёт по всем процессам строит задача timeReport
+public class TimeBreakdown {
+    private TimeBreakdown() {
+    }
+
+    public enum Bucket {
+        BROWSER_STARTUP,
+        PAGE_LOAD,
+        FORM_INTERACTION,
+        NOTIFICATION_WAIT,
+        DB_CHECKS,
+        OTHER
+    }
+
+    private static final Bucket[] buckets = Bucket.values();
+    // накопленное время текущего теста по корзинам, в наносекундах; null - поток сейчас не выполняет тест
+    private static final ThreadLocal<long[]> current = new ThreadLocal<>();
+    private static final ConcurrentLinkedQueue<TestBreakdown> tests = new ConcurrentLinkedQueue<>();
+
+    static {
+        RunReports.onRunFinished(TimeBreakdown::writeReport);
+    }
+
+    public static void record(Bucket bucket, long nanos) {
+        var nanosByBucket = current.get();
+        if (nanosByBucket != null) {
+            nanosByBucket[bucket.ordinal()] += nanos;
+        }
+    }
+
+    // корзина для действия Selenide по методу page object, из которого оно вызвано
+    static Bucket classify(String caller, String action) {
+        if ("open".equals(action) || caller.startsWith("DashboardPage.") ||
+                caller.startsWith("PaymentFormPage.") || caller.startsWith("CreditFormPage.")) {
+            return Bucket.PAGE_LOAD;
+        }
+        if (caller.equals("FormPage.checkSuccessNotification") || caller.equals("FormPage.checkErrorNotification")) {
+            return Bucket.NOTIFICATION_WAIT;
+        }
+        if (caller.startsWith("FormPage.") || caller.startsWith("LocatorRegistry.")) {
+            return Bucket.FORM_INTERACTION;
+        }
+        return Bucket.OTHER;
+    }
+
+    static void start() {
+        current.set(new long[buckets.length]);
+    }
+
+    static void finish(String test, long totalNanos) {
+        var nanosByBucket = current.get();
+        current.remove();
+        if (nanosByBucket == null) {
+            return;
+        }
+        long measured = 0;
+        for (int i = 0; i < buckets.length - 1; i++) {
+            measured += nanosByBucket[i];
+        }
+        nanosByBucket[Bucket.OTHER.ordinal()] += Math.max(0, totalNanos - measured);
+
+        var bucketsMs = new LinkedHashMap<Bucket, Double>();
+        for (Bucket bucket : buckets) {
+            bucketsMs.put(bucket, toMillis(nanosByBucket[bucket.ordinal()]));
+        }
+        tests.add(new TestBreakdown(test, toMillis(totalNanos), bucketsMs));
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1e3) / 1e3;
+    }
+
+    private static void writeReport() {
+        if (!tests.isEmpty()) {
+            ReportFiles.writeJson("time-breakdown", new Report(ReportFiles.runId(), new ArrayList<>(tests)));
+        }
+    }
+
+    @Value
+    public static class TestBreakdown {
+        private String test;
+        private double totalMs;
+        private Map<Bucket, Double> bucketsMs;
+    }
+
+    @Value
+    public static class Report {
+        private String runId;
+        private List<TestBreakdown> tests;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.netology.metrics;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import ru.netology.scheduling.TestDurations;
+
+// замер полного времени теста (он же попадает в историю длительностей для порядка запуска и шардов); подключается раньше остальных расширений, чтобы в тест попали и выдача браузера из пула,
+// и очистка БД после теста
+public class TimeBreakdownExtension implements BeforeEachCallback, AfterEachCallback {
+    private static final ExtensionContext.Namespace namespace = ExtensionContext.Namespace.create(TimeBreakdownExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        TimeBreakdown.start();
+        context.getStore(namespace).put("start", System.nanoTime());
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        Long start = context.getStore(namespace).remove("start", Long.class);
+        if (start != null) {
+            long elapsed = System.nanoTime() - start;
+            TimeBreakdown.finish(ActionTimingsExtension.testName(context), elapsed);
+            TestDurations.record(context.getRequiredTestClass(), context.getRequiredTestMethod().getName(), elapsed);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package ru.netology.metrics;
+
+import com.google.gson.GsonBuilder;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// сводный отчёт о времени прогона по файлам time-breakdown*.json всех тестовых процессов последнего прогона:
+// корзины по убыванию, самые долгие тесты и классы; gradlew timeReport -> build/reports/time-breakdown/index.html и .json
+public class TimeReport {
+    public static void main(String[] args) throws IOException {
+        var inputDir = ReportFiles.resultsDir();
+        var outputDir = Path.of(System.getProperty("timeReport.dir", "build/reports/time-breakdown"));
+        int top = Integer.getInteger("timeReport.top", 20);
+
+        var tests = readTests();
+        if (tests.isEmpty()) {
+            System.out.println("Нет данных о времени тестов в " + inputDir.toAbsolutePath() + ", сначала запустите gradlew test");
+            return;
+        }
+        var summary = summarize(tests, top);
+        Files.createDirectories(outputDir);
+        Files.writeString(outputDir.resolve("time-breakdown.json"),
+                new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(summary), StandardCharsets.UTF_8);
+        Files.writeString(outputDir.resolve("index.html"), toHtml(summary), StandardCharsets.UTF_8);
+        System.out.println("Отчёт о времени прогона: " + outputDir.resolve("index.html").toAbsolutePath());
+    }
+
+    // только файлы текущего прогона: форки прошлых прогонов (например, с большим числом воркеров) оставляют свои файлы
+    private static List<TimeBreakdown.TestBreakdown> readTests() throws IOException {
+        var tests = new ArrayList<TimeBreakdown.TestBreakdown>();
+        for (var report : ReportFiles.readRun("time-breakdown", TimeBreakdown.Report.class, TimeBreakdown.Report::getRunId)) {
+            if (report.getTests() != null) {
+                tests.addAll(report.getTests());
+            }
+        }
+        return tests;
+    }
+
+    static Summary summarize(List<TimeBreakdown.TestBreakdown> tests, int top) {
+        double totalMs = tests.stream().mapToDouble(TimeBreakdown.TestBreakdown::getTotalMs).sum();
+
+        var bucketTotals = new EnumMap<TimeBreakdown.Bucket, Double>(TimeBreakdown.Bucket.class);
+        var classTotals = new TreeMap<String, double[]>();
+        for (var test : tests) {
+            test.getBucketsMs().forEach((bucket, ms) -> bucketTotals.merge(bucket, ms, Double::sum));
+            var totals = classTotals.computeIfAbsent(className(test.getTest()), ignored -> new double[2]);
+            totals[0] += test.getTotalMs();
+            totals[1]++;
+        }
+
+        var buckets = bucketTotals.entrySet().stream()
+                .map(entry -> new BucketShare(entry.getKey().name(), round(entry.getValue()), share(entry.getValue(), totalMs)))
+                .sorted(Comparator.comparingDouble(BucketShare::getMs).reversed())
+                .collect(Collectors.toList());
+        var slowest = tests.stream()
+                .sorted(Comparator.comparingDouble(TimeBreakdown.TestBreakdown::getTotalMs).reversed())
+                .limit(top)
+                .collect(Collectors.toList());
+        var classes = classTotals.entrySet().stream()
+                .map(entry -> new ClassTotal(entry.getKey(), round(entry.getValue()[0]), (int) entry.getValue()[1],
+                        share(entry.getValue()[0], totalMs)))
+                .sorted(Comparator.comparingDouble(ClassTotal::getMs).reversed())
+                .collect(Collectors.toList());
+        return new Summary(tests.size(), round(totalMs), buckets, slowest, classes);
+    }
+
+    // "PaymentTest.IncreasedTimeout.shouldApprove...: 1. Оплата ..." -> "PaymentTest.IncreasedTimeout"
+    private static String className(String test) {
+        int nameEnd = test.indexOf(": ");
+        var qualifiedMethod = nameEnd < 0 ? test : test.substring(0, nameEnd);
+        int methodStart = qualifiedMethod.lastIndexOf('.');
+        return methodStart < 0 ? qualifiedMethod : qualifiedMethod.substring(0, methodStart);
+    }
+
+    private static double share(double ms, double totalMs) {
+        return totalMs == 0 ? 0 : Math.round(ms / totalMs * 1000) / 10.0;
+    }
+
+    private static double round(double ms) {
+        return Math.round(ms * 10) / 10.0;
+    }
+
+    private static String toHtml(Summary summary) {
+        var html = new StringBuilder();
+        html.append("<!DOCTYPE html><html lang=\"ru\"><head><meta charset=\"utf-8\"><title>Время прогона</title><style>")
+                .append("body{font-family:sans-serif;margin:24px}table{border-collapse:collapse;margin-bottom:24px}")
+                .append("td,th{border:1px solid #ccc;padding:4px 8px;text-align:left}td.n{text-align:right}")
+                .append(".bar{background:#4a90d9;height:10px}</style></head><body>")
+                .append("<h1>Время прогона</h1><p>Тестов: ").append(summary.getTests())
+                .append(", суммарное время: ").append(formatSeconds(summary.getTotalMs())).append("</p>");
+
+        html.append("<h2>Корзины</h2><table><tr><th>Корзина</th><th>Время</th><th>Доля</th><th></th></tr>");
+        for (var bucket : summary.getBuckets()) {
+            html.append("<tr><td>").append(bucket.getBucket()).append("</td><td class=\"n\">").append(formatSeconds(bucket.getMs()))
+                    .append("</td><td class=\"n\">").append(bucket.getShare()).append("%</td><td><div class=\"bar\" style=\"width:")
+                    .append(Math.round(bucket.getShare() * 3)).append("px\"></div></td></tr>");
+        }
+        html.append("</table>");
+
+        html.append("<h2>Самые долгие тесты</h2><table><tr><th>Тест</th><th>Время</th>");
+        for (var bucket : TimeBreakdown.Bucket.values()) {
+            html.append("<th>").append(bucket.name()).append("</th>");
+        }
+        html.append("</tr>");
+        for (var test : summary.getSlowestTests()) {
+            html.append("<tr><td>").append(escape(test.getTest())).append("</td><td class=\"n\">").append(formatSeconds(test.getTotalMs())).append("</td>");
+            for (var bucket : TimeBreakdown.Bucket.values()) {
+                html.append("<td class=\"n\">").append(formatSeconds(test.getBucketsMs().getOrDefault(bucket, 0.0))).append("</td>");
+            }
+            html.append("</tr>");
+        }
+        html.append("</table>");
+
+        html.append("<h2>Классы</h2><table><tr><th>Класс</th><th>Тестов</th><th>Время</th><th>Доля</th></tr>");
+        for (var testClass : summary.getClasses()) {
+            html.append("<tr><td>").append(escape(testClass.getTestClass())).append("</td><td class=\"n\">").append(testClass.getTests())
+                    .append("</td><td class=\"n\">").append(formatSeconds(testClass.getMs())).append("</td><td class=\"n\">")
+                    .append(testClass.getShare()).append("%</td></tr>");
+        }
+        html.append("</table></body></html>");
+        return html.toString();
+    }
+
+    private static String formatSeconds(double ms) {
+        return String.format(Locale.ROOT, "%.2f с", ms / 1000);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    @Value
+    public static class BucketShare {
+        private String bucket;
+        private double ms;
+        private double share;
+    }
+
+    @Value
+    public static class ClassTotal {
+        private String testClass;
+        private double ms;
+        private int tests;
+        private double share;
+    }
+
+    // share - доля от суммарного времени всех тестов, в процентах
+    @Value
+    public static class Summary {
+        private int tests;
+        private double totalMs;
+        private List<BucketShare> buckets;
+        private List<TimeBreakdown.TestBreakdown> slowestTests;
+        private List<ClassTotal> classes;
+    }
+}
@@ -1,15 +1,17 @@
 package ru.netology.pages;
 
 import com.codeborne.selenide.SelenideElement;
+import ru.netology.helpers.ApiHelper;
 
 import static com.codeborne.selenide.Condition.text;
 import static com.codeborne.selenide.Condition.visible;
 import static com.codeborne.selenide.Selenide.$$;
 
 public class CreditFormPage extends FormPage {
-    private SelenideElement heading = $$("h3").findBy(text("Кредит по данным карты"));
+    private final SelenideElement heading = $$("h3").findBy(text("Кредит по данным карты"));
 
     public CreditFormPage() {
+        super(ApiHelper.Operation.CREDIT);
         heading.shouldBe(visible);
     }
 }
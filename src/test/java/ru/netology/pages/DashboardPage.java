@@ -7,11 +7,12 @@ import static com.codeborne.selenide.Selectors.byText;
 import static com.codeborne.selenide.Selenide.$;
 
 public class DashboardPage {
-    private SelenideElement buttonPayment = $(byText("Купить"));
-    private SelenideElement buttonCredit = $(byText("Купить в кредит"));
+    private final SelenideElement buttonPayment = $(byText("Купить"));
+    private final SelenideElement buttonCredit = $(byText("Купить в кредит"));
 
     // при создании страницы - кнопки "Купить" и "Купить в кредит" должны быть кликабельны
     public DashboardPage() {
+        LocatorRegistry.onNavigation();
         buttonPayment.shouldBe(enabled);
         buttonCredit.shouldBe(enabled);
     }
@@ -2,31 +2,92 @@ package ru.netology.pages;
 
 import com.codeborne.selenide.SelenideElement;
 import org.openqa.selenium.Keys;
+import ru.netology.helpers.AdaptiveTimeouts;
+import ru.netology.helpers.ApiHelper;
 import ru.netology.helpers.DataHelper;
+import ru.netology.metrics.NotificationLatency;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
 
 import static com.codeborne.selenide.Condition.*;
 import static com.codeborne.selenide.Condition.exactText;
-import static com.codeborne.selenide.Selectors.byText;
 import static com.codeborne.selenide.Selenide.$;
+import static com.codeborne.selenide.Selenide.executeJavaScript;
 
 
+// элементы - ленивые прокси Selenide: поиск выполняется при каждом действии в WebDriver текущего потока,
+// поэтому страница не привязана к потоку, в котором создана; сами страницы создаются отдельно для каждого теста
 public class FormPage {
-    private SelenideElement card = $(byText("Номер карты")).parent();
-    private SelenideElement month = $(byText("Месяц")).parent();
-    private SelenideElement year = $(byText("Год")).parent();
-    private SelenideElement cardOwner = $(byText("Владелец")).parent();
-    private SelenideElement cvc = $(byText("CVC/CVV")).parent();
-    private SelenideElement continueButton = $(byText("Продолжить"));
-
-    private String inputClass = ".input__control";
-    private String indicationClass = ".input__sub";
-
-    private SelenideElement notificationSuccess = $(".notification_status_ok");
-    private SelenideElement notificationError = $(".notification_status_error");
+    private static final String inputClass = ".input__control";
+    private static final String indicationClass = ".input__sub";
+
+    private static final String cardLabel = "Номер карты";
+    private static final String monthLabel = "Месяц";
+    private static final String yearLabel = "Год";
+    private static final String cardOwnerLabel = "Владелец";
+    private static final String cvcLabel = "CVC/CVV";
+    private static final String continueText = "Продолжить";
+
+    // контейнеры полей ищутся по подписи один раз на загрузку страницы
+    private final LocatorRegistry locators = new LocatorRegistry()
+            .register(cardLabel, true)
+            .register(monthLabel, true)
+            .register(yearLabel, true)
+            .register(cardOwnerLabel, true)
+            .register(cvcLabel, true)
+            .register(continueText, false);
+
+    private final SelenideElement notificationSuccess = $(".notification_status_ok");
+    private final SelenideElement notificationError = $(".notification_status_error");
+
+    // время от отправки формы до уведомления с решением банка (точность - интервал опроса Selenide, 200 мс по умолчанию)
+    private final ApiHelper.Operation operation;
+    private long submittedAt;
+
+    protected FormPage(ApiHelper.Operation operation) {
+        this.operation = operation;
+    }
+
+    // TYPING - посимвольный ввод в каждое поле через WebDriver (нужен для проверок масок ввода),
+    // BATCH - все поля заполняются одним скриптом в браузере; режим по умолчанию задаётся -Dform.fill=typing|batch
+    public enum FillMode {
+        TYPING,
+        BATCH
+    }
+
+    private static final FillMode defaultFillMode = FillMode.valueOf(System.getProperty("form.fill", "typing").toUpperCase(Locale.ROOT));
+
+    // значение выставляется через нативный сеттер, иначе React не заметит изменения, затем отправляются события input и change;
+    // поля с null не трогаем, как и при посимвольном вводе пустого значения
+    private static final String batchFillScript =
+            "var fields = arguments[0], values = arguments[1], missing = [];" +
+            "var setter = Object.getOwnPropertyDescriptor(HTMLInputElement.prototype, 'value').set;" +
+            "for (var i = 0; i < fields.length; i++) {" +
+            "  var field = fields[i] && document.querySelector(fields[i]);" +
+            "  var input = field && field.querySelector('" + inputClass + "');" +
+            "  if (!input) { missing.push(i); continue; }" +
+            "  if (values[i] === null) { continue; }" +
+            "  input.focus();" +
+            "  setter.call(input, values[i]);" +
+            "  input.dispatchEvent(new Event('input', {bubbles: true}));" +
+            "  input.dispatchEvent(new Event('change', {bubbles: true}));" +
+            "  input.blur();" +
+            "}" +
+            "return missing;";
 
     public void fillForm(DataHelper.CardData data) {
+        fillForm(data, defaultFillMode);
+    }
+
+    public void fillForm(DataHelper.CardData data, FillMode mode) {
+        if (mode == FillMode.BATCH) {
+            fillFormInOneScript(data);
+            return;
+        }
         fillCard (data.getCardNumber());
         fillMonth(data.getMonth());
         fillYear(data.getYear());
@@ -34,44 +95,86 @@ public class FormPage {
         fillCVC(data.getCvc());
     }
 
+    private void fillFormInOneScript(DataHelper.CardData data) {
+        var labels = List.of(cardLabel, monthLabel, yearLabel, cardOwnerLabel, cvcLabel);
+        var values = Arrays.asList(data.getCardNumber(), data.getMonth(), data.getYear(), data.getCardOwner(), data.getCvc());
+        List<Long> missing = executeJavaScript(batchFillScript, locators.getCss(labels), values);
+        if (missing != null && !missing.isEmpty()) {
+            // по сохранённым путям полей уже нет (форма перерисовалась) - вычисляем пути заново и заполняем ещё раз
+            locators.invalidate();
+            missing = executeJavaScript(batchFillScript, locators.getCss(labels), values);
+        }
+        if (missing != null && !missing.isEmpty()) {
+            throw new IllegalStateException("На форме не найдены поля: " + missing.stream().map(i -> labels.get(i.intValue())).collect(Collectors.toList()));
+        }
+    }
+
+    private SelenideElement card() {
+        return locators.get(cardLabel);
+    }
+
+    private SelenideElement month() {
+        return locators.get(monthLabel);
+    }
+
+    private SelenideElement year() {
+        return locators.get(yearLabel);
+    }
+
+    private SelenideElement cardOwner() {
+        return locators.get(cardOwnerLabel);
+    }
+
+    private SelenideElement cvc() {
+        return locators.get(cvcLabel);
+    }
+
     public void sendForm() {
-        continueButton.click();
+        submittedAt = System.nanoTime();
+        locators.get(continueText).click();
+    }
+
+    private void recordVerdictLatency(String verdict) {
+        if (submittedAt != 0) {
+            NotificationLatency.record(operation.name(), verdict, System.nanoTime() - submittedAt);
+            submittedAt = 0;
+        }
     }
 
     public void fillCard(String value) {
-        card.$(inputClass).setValue(value);
+        card().$(inputClass).setValue(value);
     }
 
     public void fillMonth(String value) {
-        month.$(inputClass).setValue(value);
+        month().$(inputClass).setValue(value);
     }
 
     public void fillYear(String value) {
-        year.$(inputClass).setValue(value);
+        year().$(inputClass).setValue(value);
     }
 
     public void fillCardOwner(String value) {
-        cardOwner.$(inputClass).setValue(value);
+        cardOwner().$(inputClass).setValue(value);
     }
 
     public void fillCVC(String value) {
-        cvc.$(inputClass).setValue(value);
+        cvc().$(inputClass).setValue(value);
     }
 
     public String getCardValue() {
-        return card.$(inputClass).getValue();
+        return card().$(inputClass).getValue();
     }
 
     public String getMonthValue() {
-        return month.$(inputClass).getValue();
+        return month().$(inputClass).getValue();
     }
 
     public String getYearValue() {
-        return year.$(inputClass).getValue();
+        return year().$(inputClass).getValue();
     }
 
     public String getCVCValue() {
-        return cvc.$(inputClass).getValue();
+        return cvc().$(inputClass).getValue();
     }
 
     public void clearField(SelenideElement element) {
@@ -79,33 +182,60 @@ public class FormPage {
         element.$(inputClass).sendKeys(Keys.BACK_SPACE);
     }
 
+    // durationOfSec - верхняя граница; с -Dwait.adaptive=true ожидание сокращается по истории прошлых прогонов,
+    // а не дождавшаяся проверка записывается в историю своим таймаутом.
+    // Проверки вызывают Selenide прямо из своего метода, без лямбд: ActionTimings и TimeBreakdown относят
+    // действие к методу page object по стеку вызовов, а кадр лямбды назывался бы lambda$...
     public void checkSuccessNotification(int durationOfSec) {
-        notificationSuccess.$(".notification__content").shouldHave(exactText("Операция одобрена Банком."), Duration.ofSeconds(durationOfSec));
+        try (var wait = AdaptiveTimeouts.start(operation + ".successNotification", Duration.ofSeconds(durationOfSec))) {
+            notificationSuccess.$(".notification__content").shouldHave(exactText("Операция одобрена Банком."), wait.getTimeout());
+            wait.passed();
+        }
+        recordVerdictLatency("APPROVED");
         notificationSuccess.shouldBe(visible);
     }
 
     public void checkErrorNotification(int durationOfSec) {
-        notificationError.$(".notification__content").shouldHave(exactText("Ошибка! Банк отказал в проведении операции."), Duration.ofSeconds(durationOfSec));
+        try (var wait = AdaptiveTimeouts.start(operation + ".errorNotification", Duration.ofSeconds(durationOfSec))) {
+            notificationError.$(".notification__content").shouldHave(exactText("Ошибка! Банк отказал в проведении операции."), wait.getTimeout());
+            wait.passed();
+        }
+        recordVerdictLatency("ERROR");
         notificationError.shouldBe(visible);
     }
 
     public void checkCardNumberError(String errorText, int durationOfSec) {
-        card.$(indicationClass).shouldHave(exactText(errorText), Duration.ofSeconds(durationOfSec)).shouldBe(visible);
+        try (var wait = AdaptiveTimeouts.start("cardNumberError", Duration.ofSeconds(durationOfSec))) {
+            card().$(indicationClass).shouldHave(exactText(errorText), wait.getTimeout()).shouldBe(visible);
+            wait.passed();
+        }
     }
 
     public void checkMonthError(String errorText, int durationOfSec) {
-        month.$(indicationClass).shouldHave(exactText(errorText), Duration.ofSeconds(durationOfSec)).shouldBe(visible);
+        try (var wait = AdaptiveTimeouts.start("monthError", Duration.ofSeconds(durationOfSec))) {
+            month().$(indicationClass).shouldHave(exactText(errorText), wait.getTimeout()).shouldBe(visible);
+            wait.passed();
+        }
     }
 
     public void checkYearError(String errorText, int durationOfSec) {
-        year.$(indicationClass).shouldHave(exactText(errorText), Duration.ofSeconds(durationOfSec)).shouldBe(visible);
+        try (var wait = AdaptiveTimeouts.start("yearError", Duration.ofSeconds(durationOfSec))) {
+            year().$(indicationClass).shouldHave(exactText(errorText), wait.getTimeout()).shouldBe(visible);
+            wait.passed();
+        }
     }
 
     public void checkCardOwnerError(String errorText, int durationOfSec) {
-        cardOwner.$(indicationClass).shouldHave(exactText(errorText), Duration.ofSeconds(durationOfSec)).shouldBe(visible);
+        try (var wait = AdaptiveTimeouts.start("cardOwnerError", Duration.ofSeconds(durationOfSec))) {
+            cardOwner().$(indicationClass).shouldHave(exactText(errorText), wait.getTimeout()).shouldBe(visible);
+            wait.passed();
+        }
     }
 
     public void checkCVCError(String errorText, int durationOfSec) {
-        cvc.$(indicationClass).shouldHave(exactText(errorText), Duration.ofSeconds(durationOfSec)).shouldBe(visible);
+        try (var wait = AdaptiveTimeouts.start("cvcError", Duration.ofSeconds(durationOfSec))) {
+            cvc().$(indicationClass).shouldHave(exactText(errorText), wait.getTimeout()).shouldBe(visible);
+            wait.passed();
+        }
     }
 }
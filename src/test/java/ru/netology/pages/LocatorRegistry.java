@@ -0,0 +1,191 @@
+package ru.netology.pages;
+
+import com.codeborne.selenide.SelenideElement;
+import lombok.Value;
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import ru.netology.metrics.ReportFiles;
+import ru.netology.metrics.RunReports;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.codeborne.selenide.Selectors.byText;
+import static com.codeborne.selenide.Selenide.$;
+import static com.codeborne.selenide.Selenide.executeJavaScript;
+
+// реестр локаторов по тексту (подписи полей, кнопки): вместо XPath-поиска текста по всему DOM при каждом обращении
+// все элементы находятся одним скриптом один раз на загрузку страницы и дальше ищутся по CSS-пути;
+// после перехода на другую страницу (см. onNavigation) пути вычисляются заново, а в остальное время кэшу доверяем:
+// пути вычисляются заново, только если по сохранённому пути Selenide ничего не нашёл (страница перерисовалась)
+public class LocatorRegistry {
+    private static final ThreadLocal<Long> navigations = ThreadLocal.withInitial(() -> 0L);
+
+    private static final AtomicLong resolutions = new AtomicLong();
+    private static final AtomicLong resolutionNanos = new AtomicLong();
+    private static final AtomicLong lookups = new AtomicLong();
+    private static final AtomicLong staleResolutions = new AtomicLong();
+
+    static {
+        RunReports.onRunFinished(LocatorRegistry::writeReport);
+    }
+
+    // путь строится от ближайшего элемента с id (или от корня) через :nth-child, поэтому однозначен для текущего DOM
+    private static final String resolveScript =
+            "var texts = arguments[0], parents = arguments[1], result = [];" +
+            "function path(el) {" +
+            "  var parts = [];" +
+            "  while (el && el.nodeType === 1 && el !== document.documentElement) {" +
+            "    if (el.id) { parts.unshift('#' + CSS.escape(el.id)); break; }" +
+            "    var i = 1, sibling = el;" +
+            "    while ((sibling = sibling.previousElementSibling)) { i++; }" +
+            "    parts.unshift(el.tagName.toLowerCase() + ':nth-child(' + i + ')');" +
+            "    el = el.parentElement;" +
+            "  }" +
+            "  return parts.join(' > ');" +
+            "}" +
+            "for (var i = 0; i < texts.length; i++) {" +
+            "  var el = document.evaluate(\"//*[normalize-space(text())='\" + texts[i] + \"']\", document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;" +
+            "  if (el && parents[i]) { el = el.parentElement; }" +
+            "  result.push(el ? path(el) : null);" +
+            "}" +
+            "return result;";
+
+    private final Map<String, Boolean> entries = new LinkedHashMap<>();
+    private Map<String, String> cssByText;
+    private long resolvedAt = -1;
+
+    // text - текст элемента, parent - нужен ли родитель найденного элемента (контейнер поля с подписью)
+    public LocatorRegistry register(String text, boolean parent) {
+        entries.put(text, parent);
+        cssByText = null;
+        return this;
+    }
+
+    // вызывается после каждого открытия страницы в текущем потоке
+    public static void onNavigation() {
+        navigations.set(navigations.get() + 1);
+    }
+
+    // для тех, кто работает с путями напрямую (getCss): по путям ничего не нашлось, при следующем обращении они вычисляются заново
+    public void invalidate() {
+        staleResolutions.incrementAndGet();
+        cssByText = null;
+    }
+
+    // элемент ищется лениво, при каждом действии Selenide: сначала по сохранённому пути, и только если по нему
+    // ничего нет - пути вычисляются заново
+    public SelenideElement get(String text) {
+        checkRegistered(List.of(text));
+        return $(new CachedLocator(text));
+    }
+
+    // пути для нескольких элементов сразу (например, для заполнения формы одним скриптом); null - элемент не найден
+    public List<String> getCss(List<String> texts) {
+        checkRegistered(texts);
+        var paths = new ArrayList<String>();
+        for (String text : texts) {
+            paths.add(cachedCss(text));
+        }
+        return paths;
+    }
+
+    private void checkRegistered(List<String> texts) {
+        for (String text : texts) {
+            if (!entries.containsKey(text)) {
+                throw new IllegalArgumentException("Локатор не зарегистрирован: " + text);
+            }
+        }
+    }
+
+    private String cachedCss(String text) {
+        if (cssByText == null || resolvedAt != navigations.get()) {
+            resolve();
+        }
+        return cssByText.get(text);
+    }
+
+    private List<WebElement> find(SearchContext context, String text) {
+        lookups.incrementAndGet();
+        var css = cachedCss(text);
+        if (css != null) {
+            var found = context.findElements(By.cssSelector(css));
+            if (!found.isEmpty()) {
+                return found;
+            }
+        }
+        invalidate();
+        css = cachedCss(text);
+        if (css != null) {
+            return context.findElements(By.cssSelector(css));
+        }
+        // элемент не найден и при разрешении (например, ещё не отрисован) - ищем по тексту, как раньше
+        var found = context.findElements(byText(text));
+        if (!entries.get(text)) {
+            return found;
+        }
+        var parents = new ArrayList<WebElement>();
+        for (WebElement element : found) {
+            parents.add(element.findElement(By.xpath("..")));
+        }
+        return parents;
+    }
+
+    private void resolve() {
+        long start = System.nanoTime();
+        List<String> texts = new ArrayList<>(entries.keySet());
+        List<String> paths = executeJavaScript(resolveScript, texts, new ArrayList<>(entries.values()));
+        var resolved = new LinkedHashMap<String, String>();
+        for (int i = 0; i < texts.size(); i++) {
+            resolved.put(texts.get(i), paths.get(i));
+        }
+        cssByText = resolved;
+        resolvedAt = navigations.get();
+        resolutions.incrementAndGet();
+        resolutionNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    private static void writeReport() {
+        if (lookups.get() > 0) {
+            ReportFiles.writeJson("locator-registry", getStats());
+        }
+    }
+
+    public static Stats getStats() {
+        long count = resolutions.get();
+        return new Stats(count, staleResolutions.get(), lookups.get(), count == 0 ? 0 : resolutionNanos.get() / count / 1000);
+    }
+
+    // сколько раз локаторы вычислялись (из них - заново из-за перерисовки страницы), сколько раз по ним искали элементы
+    // и среднее время вычисления; пишется в locator-registry*.json
+    @Value
+    public static class Stats {
+        private long resolutions;
+        private long staleResolutions;
+        private long lookups;
+        private long avgResolutionMicros;
+    }
+
+    // локатор Selenide поверх реестра: Selenide вызывает его при каждом поиске элемента, в том числе при ожидании
+    private class CachedLocator extends By {
+        private final String text;
+
+        private CachedLocator(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public List<WebElement> findElements(SearchContext context) {
+            return find(context, text);
+        }
+
+        @Override
+        public String toString() {
+            return "by registered text: " + text;
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package ru.netology.pages;
 
 import com.codeborne.selenide.SelenideElement;
+import ru.netology.helpers.ApiHelper;
 
 import static com.codeborne.selenide.Condition.*;
 import static com.codeborne.selenide.Selenide.$$;
 
 public class PaymentFormPage extends FormPage {
-    private SelenideElement heading = $$("h3").findBy(text("Оплата по карте"));
+    private final SelenideElement heading = $$("h3").findBy(text("Оплата по карте"));
 
     public PaymentFormPage() {
+        super(ApiHelper.Operation.PAYMENT);
         heading.shouldBe(visible);
     }
 }
@@ -0,0 +1,18 @@
+package ru.netology.scheduling;
+
+import org.junit.jupiter.api.ClassDescriptor;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.ClassOrdererContext;
+
+import java.util.Comparator;
+
+// классы от долгих к коротким по истории прогонов: при параллельном запуске долгий класс не остаётся на конец,
+// когда остальные потоки уже простаивают; включается -Dtest.order=duration
+public class LongestFirstClassOrderer implements ClassOrderer {
+    @Override
+    public void orderClasses(ClassOrdererContext context) {
+        context.getClassDescriptors().sort(Comparator
+                .comparingDouble((ClassDescriptor descriptor) -> TestDurations.estimateClassMs(descriptor.getTestClass())).reversed()
+                .thenComparing(descriptor -> descriptor.getTestClass().getName()));
+    }
+}
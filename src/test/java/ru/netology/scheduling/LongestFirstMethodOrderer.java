@@ -0,0 +1,27 @@
+package ru.netology.scheduling;
+
+import org.junit.jupiter.api.MethodDescriptor;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.MethodOrdererContext;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.util.Comparator;
+import java.util.Optional;
+
+// тесты внутри класса от долгих к коротким по истории прогонов; включается -Dtest.order=duration
+public class LongestFirstMethodOrderer implements MethodOrderer {
+    @Override
+    public void orderMethods(MethodOrdererContext context) {
+        context.getMethodDescriptors().sort(Comparator
+                .comparingDouble((MethodDescriptor descriptor) -> TestDurations.estimateMs(
+                        TestDurations.key(context.getTestClass().getName(), descriptor.getMethod().getName()))).reversed()
+                .thenComparing(descriptor -> descriptor.getMethod().getName()));
+    }
+
+    // по умолчанию упорядоченные методы выполняются в одном потоке; порядок нужен только как очерёдность запуска,
+    // поэтому режим параллельности остаётся из junit-platform.properties
+    @Override
+    public Optional<ExecutionMode> getDefaultExecutionMode() {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,135 @@
+package ru.netology.scheduling;
+
+import lombok.Getter;
+import lombok.Value;
+import org.junit.platform.engine.FilterResult;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.PostDiscoveryFilter;
+import ru.netology.metrics.ReportFiles;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// деление тестов между шардами - отдельными запусками Gradle (gradlew testShard0 ... или задания CI): -Dtest.shard.count=N -Dtest.shard.index=i;
+// тесты раскладываются жадно по LPT: от долгих к коротким, каждый - в наименее загруженный шард, поэтому шарды
+// заканчивают примерно одновременно; раскладка зависит только от истории длительностей и одинакова во всех шардах.
+// Делятся тесты, а не классы: классов всего несколько, и по классам шарды не выровнять.
+// Подключается через META-INF/services, без -Dtest.shard.count пропускает все тесты
+public class ShardFilter implements PostDiscoveryFilter {
+    private static final int shardCount = Integer.getInteger("test.shard.count", 1);
+    private static final int shardIndex = Integer.getInteger("test.shard.index", 0);
+
+    private TestDescriptor plannedRoot;
+    private final Set<String> shardMethods = new HashSet<>();
+    private final Set<String> shardClasses = new HashSet<>();
+
+    @Override
+    public FilterResult apply(TestDescriptor descriptor) {
+        if (shardCount <= 1) {
+            return FilterResult.included("шардирование выключено");
+        }
+        var source = descriptor.getSource().orElse(null);
+        if (source instanceof MethodSource) {
+            var method = (MethodSource) source;
+            plan(descriptor);
+            return FilterResult.includedIf(shardMethods.contains(TestDurations.key(method.getClassName(), method.getMethodName())),
+                    () -> "в шарде " + shardIndex, () -> "в другом шарде");
+        }
+        if (source instanceof ClassSource) {
+            plan(descriptor);
+            // класс остаётся, если в шарде есть его тесты или тесты его вложенных классов
+            return FilterResult.includedIf(shardClasses.contains(((ClassSource) source).getClassName()),
+                    () -> "в шарде " + shardIndex, () -> "в другом шарде");
+        }
+        return FilterResult.included("не тест и не класс");
+    }
+
+    private synchronized void plan(TestDescriptor descriptor) {
+        var root = descriptor;
+        while (root.getParent().isPresent()) {
+            root = root.getParent().get();
+        }
+        if (root == plannedRoot) {
+            return;
+        }
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("test.shard.index должен быть от 0 до " + (shardCount - 1) + ": " + shardIndex);
+        }
+        plannedRoot = root;
+        shardMethods.clear();
+        shardClasses.clear();
+
+        var estimates = new LinkedHashMap<String, Double>();
+        for (TestDescriptor test : root.getDescendants()) {
+            var source = test.getSource().orElse(null);
+            if (source instanceof MethodSource) {
+                var method = (MethodSource) source;
+                var key = TestDurations.key(method.getClassName(), method.getMethodName());
+                estimates.computeIfAbsent(key, TestDurations::estimateMs);
+            }
+        }
+
+        var shards = assign(estimates, shardCount);
+        for (String key : shards.get(shardIndex).getTests()) {
+            shardMethods.add(key);
+            addWithEnclosingClasses(key.substring(0, key.indexOf('#')));
+        }
+        // раскладка всех шардов - в shard-plan-<i>.json рядом с результатами Allure
+        ReportFiles.writeJson("shard-plan-" + shardIndex, new Plan(ReportFiles.runId(), shardIndex, shardCount, shards));
+    }
+
+    // LPT: тесты от долгих к коротким (при равной оценке - по имени), каждый - в наименее загруженный шард
+    static List<Shard> assign(Map<String, Double> estimates, int shardCount) {
+        var shards = new ArrayList<Shard>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards.add(new Shard(shard));
+        }
+        estimates.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(test -> {
+                    var lightest = shards.get(0);
+                    for (Shard shard : shards) {
+                        if (shard.estimatedMs < lightest.estimatedMs) {
+                            lightest = shard;
+                        }
+                    }
+                    lightest.tests.add(test.getKey());
+                    lightest.estimatedMs += test.getValue();
+                });
+        return shards;
+    }
+
+    // "ru.netology.test.PaymentTest$IncreasedTimeout" -> он сам и "ru.netology.test.PaymentTest"
+    private void addWithEnclosingClasses(String className) {
+        for (int end = className.indexOf('$'); end > 0; end = className.indexOf('$', end + 1)) {
+            shardClasses.add(className.substring(0, end));
+        }
+        shardClasses.add(className);
+    }
+
+    // шард в плане: его тесты ("класс#метод") и их суммарная оценка по истории прогонов
+    @Getter
+    static class Shard {
+        private final int index;
+        private final List<String> tests = new ArrayList<>();
+        private double estimatedMs;
+
+        Shard(int index) {
+            this.index = index;
+        }
+    }
+
+    @Value
+    static class Plan {
+        private String runId;
+        private int shardIndex;
+        private int shardCount;
+        private List<Shard> shards;
+    }
+}
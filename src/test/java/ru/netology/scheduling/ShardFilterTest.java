@@ -0,0 +1,92 @@
+package ru.netology.scheduling;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShardFilterTest {
+
+    static Map<String, Double> estimates(int count, long seed) {
+        var random = new Random(seed);
+        var estimates = new LinkedHashMap<String, Double>();
+        for (int i = 0; i < count; i++) {
+            // часть оценок совпадает: порядок при равных оценках тоже должен быть однозначным
+            estimates.put("ru.netology.test.SomeTest$Nested" + (i % 3) + "#test" + i, (double) (random.nextInt(20) * 500 + 100));
+        }
+        return estimates;
+    }
+
+    @Test
+    @DisplayName("Шарды 0..N-1 вместе покрывают каждый тест ровно один раз")
+    void shouldCoverEveryTestExactlyOnce() {
+        for (int shardCount = 1; shardCount <= 7; shardCount++) {
+            var estimates = estimates(53, shardCount);
+            var runs = new HashMap<String, Integer>();
+            for (int shardIndex = 0; shardIndex < shardCount; shardIndex++) {
+                // каждый шард считает раскладку сам, как отдельный запуск Gradle
+                var shard = ShardFilter.assign(estimates, shardCount).get(shardIndex);
+                assertEquals(shardIndex, shard.getIndex());
+                shard.getTests().forEach(test -> runs.merge(test, 1, Integer::sum));
+            }
+            assertEquals(estimates.keySet(), runs.keySet(), "шардов: " + shardCount);
+            for (var entry : runs.entrySet()) {
+                assertEquals(1, (int) entry.getValue(), entry.getKey() + ", шардов: " + shardCount);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Раскладка не зависит от порядка, в котором тесты найдены")
+    void shouldNotDependOnDiscoveryOrder() {
+        var estimates = estimates(40, 42);
+        var reversed = new LinkedHashMap<String, Double>();
+        var keys = new ArrayList<>(estimates.keySet());
+        Collections.reverse(keys);
+        keys.forEach(key -> reversed.put(key, estimates.get(key)));
+
+        var plan = ShardFilter.assign(estimates, 4);
+        var reversedPlan = ShardFilter.assign(reversed, 4);
+        for (int shard = 0; shard < 4; shard++) {
+            assertEquals(plan.get(shard).getTests(), reversedPlan.get(shard).getTests());
+        }
+    }
+
+    @Test
+    @DisplayName("Оценки шардов различаются не больше, чем на самый долгий тест")
+    void shouldBalanceShards() {
+        var estimates = estimates(60, 7);
+        double longest = estimates.values().stream().mapToDouble(Double::doubleValue).max().orElse(0);
+        var plan = ShardFilter.assign(estimates, 5);
+        double total = 0;
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        for (var shard : plan) {
+            double sum = shard.getTests().stream().mapToDouble(estimates::get).sum();
+            assertEquals(sum, shard.getEstimatedMs(), 1e-6);
+            total += sum;
+            min = Math.min(min, sum);
+            max = Math.max(max, sum);
+        }
+        assertEquals(estimates.values().stream().mapToDouble(Double::doubleValue).sum(), total, 1e-6);
+        assertTrue(max - min <= longest, "разброс " + (max - min) + " > " + longest);
+    }
+
+    @Test
+    @DisplayName("Шардов больше, чем тестов: лишние шарды пустые")
+    void shouldLeaveExtraShardsEmpty() {
+        var plan = ShardFilter.assign(estimates(3, 1), 5);
+
+        assertEquals(5, plan.size());
+        assertEquals(3, plan.stream().mapToInt(shard -> shard.getTests().size()).sum());
+        assertTrue(plan.stream().allMatch(shard -> shard.getTests().size() <= 1));
+    }
+}
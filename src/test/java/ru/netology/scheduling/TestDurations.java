@@ -0,0 +1,139 @@
+package ru.netology.scheduling;
+
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Nested;
+import org.junit.platform.commons.annotation.Testable;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.junit.platform.commons.support.HierarchyTraversalMode;
+import org.junit.platform.commons.support.ReflectionSupport;
+import ru.netology.helpers.HistoryFile;
+import ru.netology.metrics.RunReports;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// длительности тестов по прошлым прогонам в .test-history/test-durations.json (ключ - "класс#метод", мс);
+// по ним тесты упорядочиваются от долгих к коротким и раскладываются по шардам.
+// Шард не трогает общую историю: иначе шард, запущенный позже, построил бы раскладку по другой истории,
+// и часть тестов не попала бы ни в один шард или попала бы в два. Замеры шарда откладываются в shard-durations/shard-<i>.json
+// и добавляются в историю задачей mergeShardDurations после всех шардов
+public class TestDurations {
+    private static final Path historyDir = Path.of(System.getProperty("test.historyDir", ".test-history"));
+    private static final Path historyFile = historyDir.resolve("test-durations.json");
+    private static final Path shardsDir = historyDir.resolve("shard-durations");
+    private static final int shardCount = Integer.getInteger("test.shard.count", 1);
+    // оценка сглаживается: последний прогон весит половину, поэтому единичный выброс не переворачивает порядок
+    private static final double lastRunWeight = 0.5;
+    // для тестов без истории, пока не запускалось ни одного теста
+    private static final double defaultMs = 1000;
+
+    private static final Type historyType = new TypeToken<TreeMap<String, Double>>() {
+    }.getType();
+
+    private static volatile Map<String, Double> history;
+    private static final Map<String, Double> observed = new ConcurrentHashMap<>();
+
+    static {
+        RunReports.onRunFinished(TestDurations::saveHistory);
+    }
+
+    private TestDurations() {
+    }
+
+    // вложенные классы - через '$', как в Class.getName()
+    public static String key(String className, String methodName) {
+        return className + "#" + methodName;
+    }
+
+    // параметризованные и повторяемые тесты суммируются по всем вызовам метода
+    public static void record(Class<?> testClass, String methodName, long nanos) {
+        observed.merge(key(testClass.getName(), methodName), nanos / 1_000_000.0, Double::sum);
+    }
+
+    // тест без истории считается средним: новые тесты не откладываются в конец и не занимают всё начало прогона
+    public static double estimateMs(String key) {
+        var known = history();
+        var ms = known.get(key);
+        if (ms != null) {
+            return ms;
+        }
+        return known.isEmpty() ? defaultMs : known.values().stream().mapToDouble(Double::doubleValue).average().orElse(defaultMs);
+    }
+
+    // класс вместе с вложенными (@Nested) классами
+    public static double estimateClassMs(Class<?> testClass) {
+        double total = 0;
+        for (Method method : ReflectionSupport.findMethods(testClass, candidate -> AnnotationSupport.isAnnotated(candidate, Testable.class),
+                HierarchyTraversalMode.TOP_DOWN)) {
+            total += estimateMs(key(testClass.getName(), method.getName()));
+        }
+        for (Class<?> nested : testClass.getDeclaredClasses()) {
+            if (AnnotationSupport.isAnnotated(nested, Nested.class)) {
+                total += estimateClassMs(nested);
+            }
+        }
+        return total;
+    }
+
+    static Map<String, Double> history() {
+        if (history == null) {
+            synchronized (TestDurations.class) {
+                if (history == null) {
+                    history = HistoryFile.read(historyFile, historyType, TreeMap::new);
+                }
+            }
+        }
+        return history;
+    }
+
+    private static void saveHistory() {
+        if (observed.isEmpty()) {
+            return;
+        }
+        if (shardCount > 1) {
+            // повторный запуск того же шарда до слияния заменяет его прошлые замеры
+            var shardFile = shardsDir.resolve("shard-" + Integer.getInteger("test.shard.index", 0) + ".json");
+            HistoryFile.<TreeMap<String, Double>>update(shardFile, historyType, TreeMap::new, ignored -> new TreeMap<>(observed));
+            return;
+        }
+        merge(observed);
+    }
+
+    private static void merge(Map<String, Double> lastRun) {
+        HistoryFile.<TreeMap<String, Double>>update(historyFile, historyType, TreeMap::new, saved -> {
+            lastRun.forEach((key, ms) -> saved.merge(key, ms, (old, last) -> old * (1 - lastRunWeight) + last * lastRunWeight));
+            return saved;
+        });
+    }
+
+    // gradlew mergeShardDurations: отложенные замеры всех шардов - в общую историю (после того, как отработали все шарды)
+    public static void main(String[] args) throws IOException {
+        if (!Files.isDirectory(shardsDir)) {
+            System.out.println("Нет отложенных замеров шардов в " + shardsDir.toAbsolutePath());
+            return;
+        }
+        var shardFiles = new ArrayList<Path>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(shardsDir, "shard-*.json")) {
+            files.forEach(shardFiles::add);
+        }
+        var lastRun = new TreeMap<String, Double>();
+        for (Path file : shardFiles) {
+            lastRun.putAll(HistoryFile.<TreeMap<String, Double>>read(file, historyType, TreeMap::new));
+        }
+        if (!lastRun.isEmpty()) {
+            merge(lastRun);
+        }
+        for (Path file : shardFiles) {
+            Files.delete(file);
+        }
+        System.out.println("В историю длительностей добавлены замеры " + shardFiles.size() + " шардов: " + lastRun.size() + " тестов");
+    }
+}
@@ -1,186 +1,152 @@
 package ru.netology.test;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+import ru.netology.gate.GateSimulator;
+import ru.netology.helpers.ApiHelper;
 import ru.netology.helpers.DataHelper;
+import ru.netology.helpers.DatabaseResetExtension;
+import ru.netology.helpers.ExecutionMode;
 import ru.netology.helpers.SQLHelper;
 import ru.netology.pages.CreditFormPage;
 import ru.netology.pages.DashboardPage;
 
-import static com.codeborne.selenide.Selenide.open;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+// все тесты идут через шлюз и ждут его профиль по умолчанию; тест, меняющий профиль, берёт ресурс на запись
+@ResourceLock(value = GateSimulator.lockResource, mode = ResourceAccessMode.READ)
 public class CreditTest extends TestBase {
-    static DashboardPage dashboardPage;
-    static CreditFormPage creditForm;
+    // страницы создаются заново для каждого теста в его потоке (свой WebDriver на поток)
+    DashboardPage dashboardPage;
+    CreditFormPage creditForm;
 
-    final String creditRequestsTable = "credit_request_entity";
+    void assertNewCreditRequest(SQLHelper.Snapshot snapshot, String expectedStatus) {
+        assertTrue(snapshot.awaitNewCreditStatus(expectedStatus, dbAwaitTimeout).isPresent(),
+                () -> "Нет новой заявки на кредит со статусом " + expectedStatus);
+    }
 
     @BeforeEach
-    void openHost() {
-        open(testHost);
+    void openHost(TestInfo testInfo) {
+        // в режиме api сценариям с проверкой БД браузер не нужен
+        if (!ExecutionMode.needsBrowser(testInfo.getTags())) {
+            return;
+        }
+        openSut();
 
         dashboardPage = new DashboardPage();
         creditForm = dashboardPage.openCreditForm();
     }
 
     @Nested
+    @Tag(ExecutionMode.backendTag)
+    @ExtendWith(DatabaseResetExtension.class)
     class IncreasedTimeout {
 
         @Test
         @DisplayName("41. Кредит одобрен (Позитивный сценарий)")
         void shouldApprovePaymentWithValidData() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsCreditsBefore = SQLHelper.getRowsAmountFrom(creditRequestsTable);
-
-            creditForm.fillForm(DataHelper.generateValidCardData(expiryYears));
-            creditForm.sendForm();
-
-            creditForm.checkSuccessNotification(10); // проверка уведомления в UI
-            // проверки на изменение кол-ва записей в БД (что точно добавилась новая запись)
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsCreditsBefore + 1, SQLHelper.getRowsAmountFrom(creditRequestsTable));
-            // проверка статуса последней записи
-            assertEquals(approved, SQLHelper.getLastStatusFromCreditsTable());
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
+
+            submit(creditForm, ApiHelper.Operation.CREDIT, DataHelper.generateValidCardData(expiryYears), approved);
+            // проверка, что после отправки добавились заказ и заявка на кредит с ожидаемым статусом
+            assertNewOrder(snapshot);
+            assertNewCreditRequest(snapshot, approved);
         }
 
         @Test
         @DisplayName("42. Отправка формы с годом на 5 лет больше текущего (граничное значение)")
         void shouldSendFormWithMaxExpiryYear() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsCreditsBefore = SQLHelper.getRowsAmountFrom(creditRequestsTable);
-
-            creditForm.fillForm(DataHelper.generateCardDataWithShiftedYearFromCurrent(expiryYears));
-            creditForm.sendForm();
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
 
-            creditForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsCreditsBefore + 1, SQLHelper.getRowsAmountFrom(creditRequestsTable));
-            assertEquals(approved, SQLHelper.getLastStatusFromCreditsTable());
+            submit(creditForm, ApiHelper.Operation.CREDIT, DataHelper.generateCardDataWithShiftedYearFromCurrent(expiryYears), approved);
+            assertNewOrder(snapshot);
+            assertNewCreditRequest(snapshot, approved);
         }
 
         @Test
         @DisplayName("43. Отправка формы с годом на 4 года больше текущего (ниже граничного значения)")
         void shouldSendFormWithExpiryYearBelowMax() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsCreditsBefore = SQLHelper.getRowsAmountFrom(creditRequestsTable);
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
 
-            creditForm.fillForm(DataHelper.generateCardDataWithShiftedYearFromCurrent(expiryYears - 1));
-            creditForm.sendForm();
-
-            creditForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsCreditsBefore + 1, SQLHelper.getRowsAmountFrom(creditRequestsTable));
-            assertEquals(approved, SQLHelper.getLastStatusFromCreditsTable());
+            submit(creditForm, ApiHelper.Operation.CREDIT, DataHelper.generateCardDataWithShiftedYearFromCurrent(expiryYears - 1), approved);
+            assertNewOrder(snapshot);
+            assertNewCreditRequest(snapshot, approved);
         }
 
-
         @Test
         @DisplayName("44. Отправка формы со сроком действия карты, истекающем в текущем месяце (граничное значение)")
         void shouldSendFormWithExpiryDateInCurrentMonth() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsCreditsBefore = SQLHelper.getRowsAmountFrom(creditRequestsTable);
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
 
-            creditForm.fillForm(DataHelper.generateCardDataWithShiftedMonthFromCurrent(0));
-            creditForm.sendForm();
-
-            creditForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsCreditsBefore + 1, SQLHelper.getRowsAmountFrom(creditRequestsTable));
-            assertEquals(approved, SQLHelper.getLastStatusFromCreditsTable());
+            submit(creditForm, ApiHelper.Operation.CREDIT, DataHelper.generateCardDataWithShiftedMonthFromCurrent(0), approved);
+            assertNewOrder(snapshot);
+            assertNewCreditRequest(snapshot, approved);
         }
 
         @Test
         @DisplayName("45. Отправка формы со сроком действия карты, истекающем в следующем месяце (выше граничного значения)")
         void shouldSendFormWithExpiryDateInNextMonth() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsCreditsBefore = SQLHelper.getRowsAmountFrom(creditRequestsTable);
-
-            creditForm.fillForm(DataHelper.generateCardDataWithShiftedMonthFromCurrent(1));
-            creditForm.sendForm();
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
 
-            creditForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsCreditsBefore + 1, SQLHelper.getRowsAmountFrom(creditRequestsTable));
-            assertEquals(approved, SQLHelper.getLastStatusFromCreditsTable());
+            submit(creditForm, ApiHelper.Operation.CREDIT, DataHelper.generateCardDataWithShiftedMonthFromCurrent(1), approved);
+            assertNewOrder(snapshot);
+            assertNewCreditRequest(snapshot, approved);
         }
 
         @Test
         @DisplayName("46. Отправка формы с именем владельца длиной 26 символов (включая пробел)")
         void shouldSendFormWithCardOwnerInLessThanMaxSymbols() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsCreditsBefore = SQLHelper.getRowsAmountFrom(creditRequestsTable);
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
 
-            creditForm.fillForm(DataHelper.generateCardDataWithCardOwnerFixedLength(cardOwnerMaxLength - 1, expiryYears));
-            creditForm.sendForm();
-
-            creditForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsCreditsBefore + 1, SQLHelper.getRowsAmountFrom(creditRequestsTable));
-            assertEquals(approved, SQLHelper.getLastStatusFromCreditsTable());
+            submit(creditForm, ApiHelper.Operation.CREDIT, DataHelper.generateCardDataWithCardOwnerFixedLength(cardOwnerMaxLength - 1, expiryYears), approved);
+            assertNewOrder(snapshot);
+            assertNewCreditRequest(snapshot, approved);
         }
 
         @Test
         @DisplayName("47. Отправка формы с именем владельца длиной 27 символов (включая пробел)")
         void shouldSendFormWithCardOwnerMaxLength() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsCreditsBefore = SQLHelper.getRowsAmountFrom(creditRequestsTable);
-
-            creditForm.fillForm(DataHelper.generateCardDataWithCardOwnerFixedLength(cardOwnerMaxLength, expiryYears));
-            creditForm.sendForm();
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
 
-            creditForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsCreditsBefore + 1, SQLHelper.getRowsAmountFrom(creditRequestsTable));
-            assertEquals(approved, SQLHelper.getLastStatusFromCreditsTable());
+            submit(creditForm, ApiHelper.Operation.CREDIT, DataHelper.generateCardDataWithCardOwnerFixedLength(cardOwnerMaxLength, expiryYears), approved);
+            assertNewOrder(snapshot);
+            assertNewCreditRequest(snapshot, approved);
         }
 
         @Test
         @DisplayName("48. Отправка формы с именем владельца, содержащим дефис")
         void shouldSendFormWithCardOwnerWithHyphen() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsCreditsBefore = SQLHelper.getRowsAmountFrom(creditRequestsTable);
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
 
-            creditForm.fillForm(DataHelper.generateCardDataWithHyphenCardOwner(expiryYears));
-            creditForm.sendForm();
-
-            creditForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsCreditsBefore + 1, SQLHelper.getRowsAmountFrom(creditRequestsTable));
-            assertEquals(approved, SQLHelper.getLastStatusFromCreditsTable());
+            submit(creditForm, ApiHelper.Operation.CREDIT, DataHelper.generateCardDataWithHyphenCardOwner(expiryYears), approved);
+            assertNewOrder(snapshot);
+            assertNewCreditRequest(snapshot, approved);
         }
 
         @Test
         @DisplayName("49. Отправка формы с нулевым кодом CVC/CVV")
         void shouldSendFormWithZeroCVC() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsCreditsBefore = SQLHelper.getRowsAmountFrom(creditRequestsTable);
-
-            creditForm.fillForm(DataHelper.generateCardDataWithZeroCVC(expiryYears));
-            creditForm.sendForm();
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
 
-            creditForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsCreditsBefore + 1, SQLHelper.getRowsAmountFrom(creditRequestsTable));
-            assertEquals(approved, SQLHelper.getLastStatusFromCreditsTable());
+            submit(creditForm, ApiHelper.Operation.CREDIT, DataHelper.generateCardDataWithZeroCVC(expiryYears), approved);
+            assertNewOrder(snapshot);
+            assertNewCreditRequest(snapshot, approved);
         }
 
         @Test
         @DisplayName("50. В кредите отказано (Негативный сценарий)")
         void shouldSendFormWithDeclinedCard() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsCreditsBefore = SQLHelper.getRowsAmountFrom(creditRequestsTable);
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
 
-            creditForm.fillForm(DataHelper.generateCardDataWithDeclinedCard(expiryYears));
-            creditForm.sendForm();
-
-            creditForm.checkErrorNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsCreditsBefore + 1, SQLHelper.getRowsAmountFrom(creditRequestsTable));
-            assertEquals(declined, SQLHelper.getLastStatusFromCreditsTable());
+            submit(creditForm, ApiHelper.Operation.CREDIT, DataHelper.generateCardDataWithDeclinedCard(expiryYears), declined);
+            assertNewOrder(snapshot);
+            assertNewCreditRequest(snapshot, declined);
         }
     }
 
-
     @Test
     @DisplayName("51. Отправка формы без номера карты")
     void shouldNotSendFormWithoutCardNumber() {
@@ -436,7 +402,6 @@ public class CreditTest extends TestBase {
         creditForm.checkCardOwnerError("Введите имя и фамилию, как указано на карте", 2);
     }
 
-
     @Test
     @DisplayName("78. Отправка формы с CVC/CVV неверного формата: менее 3 цифр")
     void shouldNotSendFormWithIncompleteCVC() {
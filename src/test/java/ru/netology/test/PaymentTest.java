@@ -1,205 +1,153 @@
 package ru.netology.test;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+import ru.netology.gate.GateSimulator;
+import ru.netology.helpers.ApiHelper;
 import ru.netology.helpers.DataHelper;
+import ru.netology.helpers.DatabaseResetExtension;
+import ru.netology.helpers.ExecutionMode;
 import ru.netology.helpers.SQLHelper;
 import ru.netology.pages.DashboardPage;
 import ru.netology.pages.PaymentFormPage;
 
-import static com.codeborne.selenide.Selenide.open;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+// все тесты идут через шлюз и ждут его профиль по умолчанию; тест, меняющий профиль, берёт ресурс на запись
+@ResourceLock(value = GateSimulator.lockResource, mode = ResourceAccessMode.READ)
 public class PaymentTest extends TestBase {
-    static DashboardPage dashboardPage;
-    static PaymentFormPage paymentForm;
+    // страницы создаются заново для каждого теста в его потоке (свой WebDriver на поток)
+    DashboardPage dashboardPage;
+    PaymentFormPage paymentForm;
 
-    final String paymentsTable = "payment_entity";
     String expectedPrice = "4500000";
 
+    void assertNewPayment(SQLHelper.Snapshot snapshot, String expectedStatus) {
+        var payment = snapshot.awaitNewPayment(
+                entry -> expectedPrice.equals(entry.getAmount()) && expectedStatus.equals(entry.getStatus()), dbAwaitTimeout);
+        assertTrue(payment.isPresent(), () -> "Нет новой записи об оплате " + expectedPrice + " со статусом " + expectedStatus);
+    }
+
     @BeforeEach
-    void openHost() {
-        open(testHost);
+    void openHost(TestInfo testInfo) {
+        // в режиме api сценариям с проверкой БД браузер не нужен
+        if (!ExecutionMode.needsBrowser(testInfo.getTags())) {
+            return;
+        }
+        openSut();
 
         dashboardPage = new DashboardPage();
         paymentForm = dashboardPage.openPaymentForm();
     }
 
     @Nested
+    @Tag(ExecutionMode.backendTag)
+    @ExtendWith(DatabaseResetExtension.class)
     class IncreasedTimeout {
 
         @Test
         @DisplayName("1. Оплата одобрена (Позитивный сценарий)")
         void shouldApprovePaymentWithValidData() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsPaymentsBefore = SQLHelper.getRowsAmountFrom(paymentsTable);
-
-            paymentForm.fillForm(DataHelper.generateValidCardData(expiryYears));
-            paymentForm.sendForm();
-
-            paymentForm.checkSuccessNotification(10); // проверка уведомления в UI
-
-            // проверки на изменение кол-ва записей в БД (что точно добавилась новая запись)
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsPaymentsBefore + 1, SQLHelper.getRowsAmountFrom(paymentsTable));
-            SQLHelper.Payment lastEntry = SQLHelper.getLastEntryFromPaymentsTable();
-            // проверка суммы оплаты
-            assertEquals(expectedPrice, lastEntry.getAmount());
-            // проверка статуса последней записи
-            assertEquals(approved, lastEntry.getStatus());
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
+
+            submit(paymentForm, ApiHelper.Operation.PAYMENT, DataHelper.generateValidCardData(expiryYears), approved);
+
+            // проверка, что после отправки добавились заказ и запись об оплате с ожидаемыми суммой и статусом
+            assertNewOrder(snapshot);
+            assertNewPayment(snapshot, approved);
         }
 
         @Test
         @DisplayName("2. Отправка формы с годом на 5 лет больше текущего (граничное значение)")
         void shouldSendFormWithMaxExpiryYear() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsPaymentsBefore = SQLHelper.getRowsAmountFrom(paymentsTable);
-
-            paymentForm.fillForm(DataHelper.generateCardDataWithShiftedYearFromCurrent(expiryYears));
-            paymentForm.sendForm();
-
-            paymentForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsPaymentsBefore + 1, SQLHelper.getRowsAmountFrom(paymentsTable));
-            SQLHelper.Payment lastEntry = SQLHelper.getLastEntryFromPaymentsTable();
-            assertEquals(expectedPrice, lastEntry.getAmount());
-            assertEquals(approved, lastEntry.getStatus());
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
+
+            submit(paymentForm, ApiHelper.Operation.PAYMENT, DataHelper.generateCardDataWithShiftedYearFromCurrent(expiryYears), approved);
+            assertNewOrder(snapshot);
+            assertNewPayment(snapshot, approved);
         }
 
         @Test
         @DisplayName("3. Отправка формы с годом на 4 года больше текущего (ниже граничного значения)")
         void shouldSendFormWithExpiryYearBelowMax() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsPaymentsBefore = SQLHelper.getRowsAmountFrom(paymentsTable);
-
-            paymentForm.fillForm(DataHelper.generateCardDataWithShiftedYearFromCurrent(expiryYears - 1));
-            paymentForm.sendForm();
-
-            paymentForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsPaymentsBefore + 1, SQLHelper.getRowsAmountFrom(paymentsTable));
-            SQLHelper.Payment lastEntry = SQLHelper.getLastEntryFromPaymentsTable();
-            assertEquals(expectedPrice, lastEntry.getAmount());
-            assertEquals(approved, lastEntry.getStatus());
-        }
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
 
+            submit(paymentForm, ApiHelper.Operation.PAYMENT, DataHelper.generateCardDataWithShiftedYearFromCurrent(expiryYears - 1), approved);
+            assertNewOrder(snapshot);
+            assertNewPayment(snapshot, approved);
+        }
 
         @Test
         @DisplayName("4. Отправка формы со сроком действия карты, истекающем в текущем месяце (граничное значение)")
         void shouldSendFormWithExpiryDateInCurrentMonth() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsPaymentsBefore = SQLHelper.getRowsAmountFrom(paymentsTable);
-
-            paymentForm.fillForm(DataHelper.generateCardDataWithShiftedMonthFromCurrent(0));
-            paymentForm.sendForm();
-
-            paymentForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsPaymentsBefore + 1, SQLHelper.getRowsAmountFrom(paymentsTable));
-            SQLHelper.Payment lastEntry = SQLHelper.getLastEntryFromPaymentsTable();
-            assertEquals(expectedPrice, lastEntry.getAmount());
-            assertEquals(approved, lastEntry.getStatus());
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
+
+            submit(paymentForm, ApiHelper.Operation.PAYMENT, DataHelper.generateCardDataWithShiftedMonthFromCurrent(0), approved);
+            assertNewOrder(snapshot);
+            assertNewPayment(snapshot, approved);
         }
 
         @Test
         @DisplayName("5. Отправка формы со сроком действия карты, истекающем в следующем месяце (выше граничного значения)")
         void shouldSendFormWithExpiryDateInNextMonth() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsPaymentsBefore = SQLHelper.getRowsAmountFrom(paymentsTable);
-
-            paymentForm.fillForm(DataHelper.generateCardDataWithShiftedMonthFromCurrent(1));
-            paymentForm.sendForm();
-
-            paymentForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsPaymentsBefore + 1, SQLHelper.getRowsAmountFrom(paymentsTable));
-            SQLHelper.Payment lastEntry = SQLHelper.getLastEntryFromPaymentsTable();
-            assertEquals(expectedPrice, lastEntry.getAmount());
-            assertEquals(approved, lastEntry.getStatus());
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
+
+            submit(paymentForm, ApiHelper.Operation.PAYMENT, DataHelper.generateCardDataWithShiftedMonthFromCurrent(1), approved);
+            assertNewOrder(snapshot);
+            assertNewPayment(snapshot, approved);
         }
 
         @Test
         @DisplayName("6. Отправка формы с именем владельца длиной 26 символов (включая пробел)")
         void shouldSendFormWithCardOwnerInLessThanMaxSymbols() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsPaymentsBefore = SQLHelper.getRowsAmountFrom(paymentsTable);
-
-            paymentForm.fillForm(DataHelper.generateCardDataWithCardOwnerFixedLength(cardOwnerMaxLength - 1, expiryYears));
-            paymentForm.sendForm();
-
-            paymentForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsPaymentsBefore + 1, SQLHelper.getRowsAmountFrom(paymentsTable));
-            SQLHelper.Payment lastEntry = SQLHelper.getLastEntryFromPaymentsTable();
-            assertEquals(expectedPrice, lastEntry.getAmount());
-            assertEquals(approved, lastEntry.getStatus());
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
+
+            submit(paymentForm, ApiHelper.Operation.PAYMENT, DataHelper.generateCardDataWithCardOwnerFixedLength(cardOwnerMaxLength - 1, expiryYears), approved);
+            assertNewOrder(snapshot);
+            assertNewPayment(snapshot, approved);
         }
 
         @Test
         @DisplayName("7. Отправка формы с именем владельца длиной 27 символов (включая пробел)")
         void shouldSendFormWithCardOwnerMaxLength() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsPaymentsBefore = SQLHelper.getRowsAmountFrom(paymentsTable);
-
-            paymentForm.fillForm(DataHelper.generateCardDataWithCardOwnerFixedLength(cardOwnerMaxLength, expiryYears));
-            paymentForm.sendForm();
-
-            paymentForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsPaymentsBefore + 1, SQLHelper.getRowsAmountFrom(paymentsTable));
-            SQLHelper.Payment lastEntry = SQLHelper.getLastEntryFromPaymentsTable();
-            assertEquals(expectedPrice, lastEntry.getAmount());
-            assertEquals(approved, lastEntry.getStatus());
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
+
+            submit(paymentForm, ApiHelper.Operation.PAYMENT, DataHelper.generateCardDataWithCardOwnerFixedLength(cardOwnerMaxLength, expiryYears), approved);
+            assertNewOrder(snapshot);
+            assertNewPayment(snapshot, approved);
         }
 
         @Test
         @DisplayName("8. Отправка формы с с фамилией владельца, содержащим дефис")
         void shouldSendFormWithCardOwnerWithHyphen() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsPaymentsBefore = SQLHelper.getRowsAmountFrom(paymentsTable);
-
-            paymentForm.fillForm(DataHelper.generateCardDataWithHyphenCardOwner(expiryYears));
-            paymentForm.sendForm();
-
-            paymentForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsPaymentsBefore + 1, SQLHelper.getRowsAmountFrom(paymentsTable));
-            SQLHelper.Payment lastEntry = SQLHelper.getLastEntryFromPaymentsTable();
-            assertEquals(expectedPrice, lastEntry.getAmount());
-            assertEquals(approved, lastEntry.getStatus());
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
+
+            submit(paymentForm, ApiHelper.Operation.PAYMENT, DataHelper.generateCardDataWithHyphenCardOwner(expiryYears), approved);
+            assertNewOrder(snapshot);
+            assertNewPayment(snapshot, approved);
         }
 
         @Test
         @DisplayName("9. Отправка формы с нулевым кодом CVC")
         void shouldSendFormWithZeroCVC() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsPaymentsBefore = SQLHelper.getRowsAmountFrom(paymentsTable);
-
-            paymentForm.fillForm(DataHelper.generateCardDataWithZeroCVC(expiryYears));
-            paymentForm.sendForm();
-
-            paymentForm.checkSuccessNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsPaymentsBefore + 1, SQLHelper.getRowsAmountFrom(paymentsTable));
-            SQLHelper.Payment lastEntry = SQLHelper.getLastEntryFromPaymentsTable();
-            assertEquals(expectedPrice, lastEntry.getAmount());
-            assertEquals(approved, lastEntry.getStatus());
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
+
+            submit(paymentForm, ApiHelper.Operation.PAYMENT, DataHelper.generateCardDataWithZeroCVC(expiryYears), approved);
+            assertNewOrder(snapshot);
+            assertNewPayment(snapshot, approved);
         }
 
         @Test
         @DisplayName("10. Оплата отклонена")
         void shouldSendFormWithDeclinedCard() {
-            long rowsOrdersBefore = SQLHelper.getRowsAmountFrom(ordersTable);
-            long rowsPaymentsBefore = SQLHelper.getRowsAmountFrom(paymentsTable);
-
-            paymentForm.fillForm(DataHelper.generateCardDataWithDeclinedCard(expiryYears));
-            paymentForm.sendForm();
-
-            paymentForm.checkErrorNotification(10);
-            assertEquals(rowsOrdersBefore + 1, SQLHelper.getRowsAmountFrom(ordersTable));
-            assertEquals(rowsPaymentsBefore + 1, SQLHelper.getRowsAmountFrom(paymentsTable));
-            SQLHelper.Payment lastEntry = SQLHelper.getLastEntryFromPaymentsTable();
-            assertEquals(expectedPrice, lastEntry.getAmount());
-            assertEquals(declined, lastEntry.getStatus());
+            SQLHelper.Snapshot snapshot = SQLHelper.takeSnapshot();
+
+            submit(paymentForm, ApiHelper.Operation.PAYMENT, DataHelper.generateCardDataWithDeclinedCard(expiryYears), declined);
+            assertNewOrder(snapshot);
+            assertNewPayment(snapshot, declined);
         }
     }
 
@@ -459,7 +407,6 @@ public class PaymentTest extends TestBase {
         paymentForm.checkCardOwnerError("Введите имя и фамилию, как указано на карте", 2);
     }
 
-
     @Test
     @DisplayName("38. Отправка формы с CVC/CVV неверного формата: менее 3 цифр")
     void shouldNotSendFormWithIncompleteCVC() {
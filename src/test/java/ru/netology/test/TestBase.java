@@ -1,11 +1,33 @@
 package ru.netology.test;
 
+import com.codeborne.selenide.WebDriverRunner;
 import com.codeborne.selenide.logevents.SelenideLogger;
 import io.qameta.allure.selenide.AllureSelenide;
-import org.junit.jupiter.api.AfterAll;
-import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtendWith;
+import ru.netology.gate.GateSimulatorExtension;
+import ru.netology.helpers.ApiHelper;
+import ru.netology.helpers.BrowserPoolExtension;
+import ru.netology.helpers.DataHelper;
+import ru.netology.helpers.DataSeedExtension;
+import ru.netology.helpers.ExecutionMode;
 import ru.netology.helpers.SQLHelper;
+import ru.netology.helpers.SutProcessExtension;
+import ru.netology.helpers.WorkerEnvironment;
+import ru.netology.metrics.ActionTimingsExtension;
+import ru.netology.metrics.RunReports;
+import ru.netology.metrics.TimeBreakdown;
+import ru.netology.metrics.TimeBreakdownExtension;
+import ru.netology.pages.FormPage;
 
+import java.time.Duration;
+
+import static com.codeborne.selenide.Selenide.open;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith({RunReports.class, TimeBreakdownExtension.class, GateSimulatorExtension.class, SutProcessExtension.class, BrowserPoolExtension.class, DataSeedExtension.class, ActionTimingsExtension.class})
 public class TestBase {
     final String approved = "APPROVED";
     final String declined = "DECLINED";
@@ -13,18 +35,52 @@ public class TestBase {
     final int cardOwnerMaxLength = 27;
     final int cardNumberMaxLength = 16;
 
-    final String ordersTable = "order_entity";
-    final String testHost = "http://localhost:8080";
+    // SUT может записать заказ в БД позже, чем появится уведомление в UI
+    final Duration dbAwaitTimeout = Duration.ofSeconds(10);
+    final String testHost = WorkerEnvironment.getSutUrl();
+
+    // без пула браузер запускается лениво внутри open(); запускаем его отдельно, чтобы запуск не смешивался с загрузкой страницы
+    void openSut() {
+        if (!WebDriverRunner.hasWebDriverStarted()) {
+            long start = System.nanoTime();
+            WebDriverRunner.getAndCheckWebDriver();
+            TimeBreakdown.record(TimeBreakdown.Bucket.BROWSER_STARTUP, System.nanoTime() - start);
+        }
+        open(testHost);
+    }
+
+    // отправка заявки в сценариях с проверкой БД: через форму или, в режиме -Dexecution.mode=api, прямым запросом в SUT
+    void submit(FormPage form, ApiHelper.Operation operation, DataHelper.CardData data, String expectedStatus) {
+        if (ExecutionMode.current() == ExecutionMode.API) {
+            var response = ApiHelper.send(testHost, operation, data);
+            assertEquals(200, response.getStatusCode());
+            assertEquals(expectedStatus, response.getStatus());
+            return;
+        }
+        form.fillForm(data);
+        form.sendForm();
+        // проверка уведомления в UI
+        if (approved.equals(expectedStatus)) {
+            form.checkSuccessNotification(10);
+        } else {
+            form.checkErrorNotification(10);
+        }
+    }
+
+    // при параллельном запуске после снимка появляются и заказы других тестов, поэтому проверяется наличие нового заказа, а не их число
+    void assertNewOrder(SQLHelper.Snapshot snapshot) {
+        assertTrue(snapshot.awaitNewOrder(dbAwaitTimeout) >= 1, "Нет нового заказа после отправки формы");
+    }
 
-    @BeforeAll
-    static void setUpAll() {
+    // слушатели SelenideLogger хранятся отдельно для каждого потока, поэтому подключаем их перед каждым тестом
+    @BeforeEach
+    void setUpListeners() {
         SelenideLogger.addListener("allure", new AllureSelenide());
     }
 
-    @AfterAll
-    static void tearDownAll() {
+    @AfterEach
+    void tearDownListeners() {
         SelenideLogger.removeListener("allure");
-        SQLHelper.cleanDatabase();
     }
 
 }